@@ -0,0 +1,73 @@
+package com.seven.auth.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.seven.auth.client.authentication.RevocationSync;
+import com.seven.auth.client.authentication.VerifiedTokenCache;
+import com.seven.auth.config.JwtAuthenticationFilter;
+import com.seven.auth.client.JwksClient;
+import com.seven.auth.client.PermissionDictionaryClient;
+import com.seven.auth.client.RevocationClient;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A bearer request through jwt-auth's and the adapter's JwtAuthenticationFilter; the adapter runs
+ * with its verified-token cache on and off. Each invocation builds a fresh mock request, which is
+ * included in the allocation figures of every variant alike.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuthenticationFilterBenchmark {
+    @Param({"false", "true"})
+    public boolean adapterCache;
+
+    private JwtAuthenticationFilter serverFilter;
+    private com.seven.auth.client.authentication.JwtAuthenticationFilter adapterFilter;
+    private String authorization;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper objectMapper = Fixtures.objectMapper();
+        com.seven.auth.JwtService jwtService = Fixtures.jwtService(Fixtures.environment(), objectMapper);
+        serverFilter = new JwtAuthenticationFilter(jwtService);
+        authorization = "Bearer " + jwtService.generateToken(Fixtures.claims());
+
+        StandardEnvironment environment = Fixtures.environment("authentication.jwt.cache.enabled", String.valueOf(adapterCache));
+        com.seven.auth.client.authentication.JwtService adapterJwtService = new com.seven.auth.client.authentication.JwtService(
+                environment, Fixtures.none(JwksClient.class), Fixtures.none(PermissionDictionaryClient.class), objectMapper);
+        adapterFilter = new com.seven.auth.client.authentication.JwtAuthenticationFilter(
+                adapterJwtService,
+                new VerifiedTokenCache(environment, Fixtures.none(MeterRegistry.class)),
+                new RevocationSync(environment, Fixtures.none(RevocationClient.class)));
+    }
+
+    @Benchmark
+    public MockHttpServletRequest serverFilter() throws Exception {
+        MockHttpServletRequest request = request();
+        serverFilter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        return request;
+    }
+
+    @Benchmark
+    public MockHttpServletRequest adapterFilter() throws Exception {
+        MockHttpServletRequest request = request();
+        adapterFilter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        return request;
+    }
+
+    private MockHttpServletRequest request() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/accounts");
+        request.addHeader("Authorization", authorization);
+        return request;
+    }
+}
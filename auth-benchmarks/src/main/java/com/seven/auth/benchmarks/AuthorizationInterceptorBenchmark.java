@@ -0,0 +1,64 @@
+package com.seven.auth.benchmarks;
+
+import com.seven.auth.config.authorization.AuthorizationHandlerInterceptor;
+import com.seven.auth.config.authorization.Authorize;
+import com.seven.auth.permission.PEnum;
+import com.seven.auth.util.GrantedPermissions;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AuthorizationHandlerInterceptor.preHandle of the authorization module and of the adapter,
+ * for a handler guarded by a permission the caller holds.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuthorizationInterceptorBenchmark {
+    private AuthorizationHandlerInterceptor serverInterceptor;
+    private com.seven.auth.client.authorization.AuthorizationHandlerInterceptor adapterInterceptor;
+    private HandlerMethod serverHandler;
+    private HandlerMethod adapterHandler;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+
+    @Setup
+    public void setUp() throws NoSuchMethodException {
+        serverInterceptor = new AuthorizationHandlerInterceptor();
+        adapterInterceptor = new com.seven.auth.client.authorization.AuthorizationHandlerInterceptor();
+        Handlers handlers = new Handlers();
+        serverHandler = new HandlerMethod(handlers, Handlers.class.getMethod("server"));
+        adapterHandler = new HandlerMethod(handlers, Handlers.class.getMethod("adapter"));
+
+        request = new MockHttpServletRequest("GET", "/api/accounts");
+        request.setAttribute("permissions", GrantedPermissions.of(Fixtures.permissions()));
+        response = new MockHttpServletResponse();
+    }
+
+    @Benchmark
+    public boolean serverPreHandle() throws Exception {
+        return serverInterceptor.preHandle(request, response, serverHandler);
+    }
+
+    @Benchmark
+    public boolean adapterPreHandle() {
+        return adapterInterceptor.preHandle(request, response, adapterHandler);
+    }
+
+    public static class Handlers {
+        @Authorize(permissions = {PEnum.read_account, PEnum.elev_read})
+        public void server() {
+        }
+
+        @com.seven.auth.client.authorization.Authorize(permissions = {"read_account", "elev_read"})
+        public void adapter() {
+        }
+    }
+}
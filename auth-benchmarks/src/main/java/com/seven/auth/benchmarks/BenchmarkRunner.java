@@ -0,0 +1,26 @@
+package com.seven.auth.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the GC profiler (allocation rate and bytes per operation) and writes
+ * machine-readable JSON results, by default to jmh-result.json. Standard JMH arguments are accepted,
+ * e.g. a benchmark regex, "-rff baseline.json" or "-f 1 -wi 1 -i 3" for a quick run.
+ */
+public class BenchmarkRunner {
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        OptionsBuilder options = new OptionsBuilder();
+        options.parent(commandLine).addProfiler(GCProfiler.class);
+        if (commandLine.getResultFormat().hasValue() || commandLine.getResult().hasValue()) {
+            options.resultFormat(commandLine.getResultFormat().orElse(ResultFormatType.JSON));
+        } else {
+            options.resultFormat(ResultFormatType.JSON).result("jmh-result.json");
+        }
+        new Runner(options.build()).run();
+    }
+}
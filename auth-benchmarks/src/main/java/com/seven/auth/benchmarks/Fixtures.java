@@ -0,0 +1,85 @@
+package com.seven.auth.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.seven.auth.JwtService;
+import com.seven.auth.account.AccountDTO;
+import com.seven.auth.key.KeyRing;
+import com.seven.auth.permission.PEnum;
+import com.seven.auth.revocation.RevocationService;
+import com.seven.auth.token.TokenClaims;
+import com.seven.auth.token.TokenMinter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Builds the services under benchmark without a Spring context or database. Only collaborators on the
+ * measured paths are real; the rest are left null and must not be reached.
+ */
+final class Fixtures {
+    static final String SIGNING_KEY = "benchmark-signing-key-benchmark-signing-key-0123456789";
+    static final String TENANT = "benchmark";
+
+    private Fixtures() {
+    }
+
+    static StandardEnvironment environment(String... properties) {
+        Map<String, Object> values = new HashMap<>();
+        values.put("authentication.jwt.signing-key", SIGNING_KEY);
+        values.put("authentication.jwt.algorithm", "HS256");
+        for (int i = 0; i + 1 < properties.length; i += 2) values.put(properties[i], properties[i + 1]);
+
+        StandardEnvironment environment = new StandardEnvironment();
+        environment.getPropertySources().addFirst(new MapPropertySource("benchmark", values));
+        return environment;
+    }
+
+    /**
+     * Configured like Spring Boot's auto-configured mapper, which the services receive in production
+     */
+    static ObjectMapper objectMapper() {
+        return Jackson2ObjectMapperBuilder.json().build();
+    }
+
+    static <T> ObjectProvider<T> none(Class<T> type) {
+        return new StaticListableBeanFactory().getBeanProvider(type);
+    }
+
+    static JwtService jwtService(StandardEnvironment environment, ObjectMapper objectMapper) {
+        KeyRing keyRing = new KeyRing(environment);
+        TokenMinter tokenMinter = new TokenMinter(keyRing, objectMapper, environment);
+        return new JwtService(keyRing, tokenMinter, null, null, null, objectMapper,
+                null, null, null, new RevocationService(null, environment), null, environment);
+    }
+
+    static AccountDTO.Record principal() {
+        return new AccountDTO.Record(
+                UUID.fromString("5b3f7a1e-2c4d-4e8f-9a0b-1c2d3e4f5a6b"),
+                "Ada", "Lovelace", "+2547000000000", "ada@seven.io",
+                LocalDate.of(1990, 12, 10),
+                ZonedDateTime.parse("2024-01-01T00:00:00Z"), ZonedDateTime.parse("2024-06-01T00:00:00Z"),
+                "admin@seven.io", "admin@seven.io");
+    }
+
+    /**
+     * A regular account's grant: the CRUD permissions of every domain, without super/elev ones
+     */
+    static List<String> permissions() {
+        return Arrays.stream(PEnum.values()).map(PEnum::name).filter(p -> !p.startsWith("super") && !p.startsWith("elev")).toList();
+    }
+
+    static TokenClaims claims() {
+        AccountDTO.Record principal = principal();
+        return TokenClaims.of(principal.email(), TENANT, principal, permissions());
+    }
+}
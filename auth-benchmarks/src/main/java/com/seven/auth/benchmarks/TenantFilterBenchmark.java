@@ -0,0 +1,60 @@
+package com.seven.auth.benchmarks;
+
+import com.seven.auth.application.TenantDirectory;
+import com.seven.auth.config.authentication.TenantFilter;
+import com.seven.auth.util.Constants;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TenantFilter routing for the three request kinds: a tenant taken from the token, a whitelisted
+ * path, and an authentication path resolving X-Tenant-Id through the tenant directory.
+ * The directory is loaded up front and not listening, so no database is involved.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TenantFilterBenchmark {
+    @Param({"token", "whitelisted", "authentication"})
+    public String route;
+
+    private TenantFilter tenantFilter;
+    private final UUID tenantId = UUID.fromString("0f1e2d3c-4b5a-6978-8796-a5b4c3d2e1f0");
+
+    @Setup
+    public void setUp() {
+        TenantDirectory tenantDirectory = new TenantDirectory(null, null, null,
+                new MockEnvironment().withProperty("authentication.tenant-directory.listen", "false"));
+        tenantDirectory.apply(Map.of(tenantId, Fixtures.TENANT));
+        tenantFilter = new TenantFilter(tenantDirectory);
+    }
+
+    @Benchmark
+    public MockHttpServletRequest doFilter() throws Exception {
+        MockHttpServletRequest request = switch (route) {
+            case "whitelisted" -> new MockHttpServletRequest("GET", "/.well-known/jwks.json");
+            case "authentication" -> {
+                MockHttpServletRequest r = new MockHttpServletRequest("POST", "/auth/login");
+                r.addHeader(Constants.TENANT_ID_KEY, tenantId.toString());
+                yield r;
+            }
+            default -> {
+                MockHttpServletRequest r = new MockHttpServletRequest("GET", "/api/accounts");
+                r.setAttribute("tenant", Fixtures.TENANT);
+                yield r;
+            }
+        };
+        tenantFilter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        return request;
+    }
+}
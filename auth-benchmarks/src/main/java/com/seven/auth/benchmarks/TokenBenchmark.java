@@ -0,0 +1,66 @@
+package com.seven.auth.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.seven.auth.JwtService;
+import com.seven.auth.account.AccountDTO;
+import com.seven.auth.token.TokenClaims;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Minting and verification of access tokens in jwt-auth.
+ * <p>
+ * decodeClaimsConvertValue reproduces the previous decoding path (generic claims map, then
+ * objectMapper.convertValue for the principal) as the reference for extractClaims' single-pass decoding.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenBenchmark {
+    private JwtService jwtService;
+    private ObjectMapper objectMapper;
+    private JwtParser mapParser;
+    private TokenClaims claims;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Fixtures.objectMapper();
+        jwtService = Fixtures.jwtService(Fixtures.environment(), objectMapper);
+        mapParser = Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(Fixtures.SIGNING_KEY.getBytes(StandardCharsets.UTF_8)))
+                .build();
+        claims = Fixtures.claims();
+        token = jwtService.generateToken(claims);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtService.generateToken(claims);
+    }
+
+    @Benchmark
+    public void extractClaims(Blackhole blackhole) {
+        Claims c = jwtService.extractClaims(token);
+        blackhole.consume(c.get("principal", AccountDTO.Record.class));
+        blackhole.consume(c.get("permissions"));
+    }
+
+    @Benchmark
+    public void decodeClaimsConvertValue(Blackhole blackhole) {
+        Claims c = mapParser.parseClaimsJws(token).getBody();
+        blackhole.consume(objectMapper.convertValue(c.get("principal"), AccountDTO.Record.class));
+        blackhole.consume((List<String>) c.get("permissions"));
+    }
+}
@@ -1,5 +1,6 @@
 package com.seven.auth.dto.account;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import lombok.ToString;
 
 import java.time.LocalDate;
@@ -27,4 +28,22 @@ public class IAccount{
         String createdBy();
         String updatedBy();
     }
+
+    /**
+     * Concrete account record for services that only see the "principal" claim of a token
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Principal(
+            UUID id,
+            String firstName,
+            String lastName,
+            String phoneNo,
+            String email,
+            LocalDate dob,
+            ZonedDateTime dateCreated,
+            ZonedDateTime dateUpdated,
+            String createdBy,
+            String updatedBy
+    ) implements Record {
+    }
 }
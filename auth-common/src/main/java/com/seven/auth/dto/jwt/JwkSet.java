@@ -0,0 +1,63 @@
+package com.seven.auth.dto.jwt;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.math.BigInteger;
+import java.security.AlgorithmParameters;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.ECParameterSpec;
+import java.security.spec.ECPoint;
+import java.security.spec.ECPublicKeySpec;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * JSON Web Key Set (RFC 7517) as published on /.well-known/jwks.json.
+ * Only P-256 EC keys are supported.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record JwkSet(List<Jwk> keys) {
+    private static final String CURVE = "P-256";
+    private static final int COORDINATE_LENGTH = 32;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Jwk(String kty, String crv, String x, String y, String kid, String use, String alg) {
+
+        public static Jwk from(String kid, ECPublicKey publicKey) {
+            Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+            return new Jwk("EC", CURVE,
+                    encoder.encodeToString(toCoordinate(publicKey.getW().getAffineX())),
+                    encoder.encodeToString(toCoordinate(publicKey.getW().getAffineY())),
+                    kid, "sig", "ES256");
+        }
+
+        public ECPublicKey toPublicKey() throws GeneralSecurityException {
+            if (!"EC".equals(kty) || !CURVE.equals(crv))
+                throw new GeneralSecurityException("Unsupported key type %s/%s for kid %s".formatted(kty, crv, kid));
+
+            Base64.Decoder decoder = Base64.getUrlDecoder();
+            ECPoint point = new ECPoint(new BigInteger(1, decoder.decode(x)), new BigInteger(1, decoder.decode(y)));
+            AlgorithmParameters parameters = AlgorithmParameters.getInstance("EC");
+            parameters.init(new ECGenParameterSpec("secp256r1"));
+            ECParameterSpec spec = parameters.getParameterSpec(ECParameterSpec.class);
+            return (ECPublicKey) KeyFactory.getInstance("EC").generatePublic(new ECPublicKeySpec(point, spec));
+        }
+
+        private static byte[] toCoordinate(BigInteger value) {
+            byte[] bytes = value.toByteArray();
+            if (bytes.length == COORDINATE_LENGTH) return bytes;
+            if (bytes.length > COORDINATE_LENGTH) //Strip sign byte
+                return Arrays.copyOfRange(bytes, bytes.length - COORDINATE_LENGTH, bytes.length);
+            byte[] padded = new byte[COORDINATE_LENGTH];
+            System.arraycopy(bytes, 0, padded, COORDINATE_LENGTH - bytes.length, bytes.length);
+            return padded;
+        }
+    }
+}
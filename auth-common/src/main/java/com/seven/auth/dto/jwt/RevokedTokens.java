@@ -0,0 +1,12 @@
+package com.seven.auth.dto.jwt;
+
+import java.util.List;
+
+/**
+ * An incremental page of token revocations. seq is the settled sequence number, to be passed back as
+ * "since" on the next sync; it may trail the entries, which are then delivered again.
+ */
+public record RevokedTokens(long seq, List<Entry> revocations) {
+    public record Entry(long seq, String jti, long expiresAt) {
+    }
+}
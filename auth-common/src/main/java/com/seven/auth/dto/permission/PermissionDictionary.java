@@ -0,0 +1,60 @@
+package com.seven.auth.dto.permission;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maps a tenant's permission names to the stable bit indices used by compact tokens.
+ * <p>
+ * Indices are allocated from a sequence and never reused, so the dictionary only grows: a dictionary
+ * of version N decodes every token minted against version N or lower. The version is the number of
+ * indices allocated so far; indices of deleted permissions are left as null holes.
+ */
+public final class PermissionDictionary {
+    private final String tenant;
+    private final int version;
+    private final List<String> permissions;
+    private final Map<String, Integer> indices;
+
+    @JsonCreator
+    public PermissionDictionary(@JsonProperty("tenant") String tenant,
+                                @JsonProperty("version") int version,
+                                @JsonProperty("permissions") List<String> permissions) {
+        this.tenant = tenant;
+        this.version = version;
+        this.permissions = Collections.unmodifiableList(permissions);
+
+        Map<String, Integer> indices = new HashMap<>();
+        for (int i = 0; i < permissions.size(); i++) {
+            if (permissions.get(i) != null) indices.put(permissions.get(i), i);
+        }
+        this.indices = Map.copyOf(indices);
+    }
+
+    public String getTenant() {
+        return tenant;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public List<String> getPermissions() {
+        return permissions;
+    }
+
+    /**
+     * @return the bit index of the permission, or -1 if this dictionary does not know it
+     */
+    @JsonIgnore
+    public int indexOf(String permission) {
+        Integer index = indices.get(permission);
+        return index == null ? -1 : index;
+    }
+}
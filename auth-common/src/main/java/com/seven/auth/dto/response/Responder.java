@@ -1,5 +1,6 @@
 package com.seven.auth.dto.response;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
@@ -25,6 +26,16 @@ public final class Responder {
                 .timestamp(LocalDateTime.now())
                 .build());
     }
+    public static ResponseEntity <Response> ok(Object records, String token, String refreshToken) {
+        return ResponseEntity.ok(Response.builder()
+                .token(token)
+                .refreshToken(refreshToken)
+                .data(records)
+                .isError(false)
+                .status(HttpStatus.OK)
+                .timestamp(LocalDateTime.now())
+                .build());
+    }
 
     public static ResponseEntity <Response> badRequest(String message) {
         return ResponseEntity.status(400).body(Response.builder()
@@ -64,6 +75,22 @@ public final class Responder {
                 .timestamp(LocalDateTime.now())
                 .build());
     }
+    public static ResponseEntity <Response> tooManyRequests(String message, long retryAfterSeconds) {
+        return ResponseEntity.status(429).header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds)).body(Response.builder()
+                .message(message)
+                .isError(true)
+                .status(HttpStatus.TOO_MANY_REQUESTS)
+                .timestamp(LocalDateTime.now())
+                .build());
+    }
+    public static ResponseEntity <Response> serviceUnavailable(String message, long retryAfterSeconds) {
+        return ResponseEntity.status(503).header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds)).body(Response.builder()
+                .message(message)
+                .isError(true)
+                .status(HttpStatus.SERVICE_UNAVAILABLE)
+                .timestamp(LocalDateTime.now())
+                .build());
+    }
     public static ResponseEntity <Response> internalServerError(String message) {
         return ResponseEntity.internalServerError().body(Response.builder()
                 .message(message)
@@ -74,16 +101,31 @@ public final class Responder {
     }
 
     public static ResponseEntity<Response> created(Object records, String token, String location) {
+        return created(records, token, null, location);
+    }
+
+    public static ResponseEntity<Response> created(Object records, String token, String refreshToken, String location) {
         URI uri = ServletUriComponentsBuilder.fromUri(URI.create(location)).buildAndExpand().toUri();
         return ResponseEntity.status(201).location(uri).body(
                 Response.builder()
                 .data(records)
                 .token(token)
+                .refreshToken(refreshToken)
                 .isError(false)
                 .status(HttpStatus.CREATED)
                 .timestamp(LocalDateTime.now())
                 .build());
     }
+    public static ResponseEntity<Response> accepted(Object records, String location) {
+        URI uri = ServletUriComponentsBuilder.fromUri(URI.create(location)).buildAndExpand().toUri();
+        return ResponseEntity.accepted().location(uri).body(
+                Response.builder()
+                .data(records)
+                .isError(false)
+                .status(HttpStatus.ACCEPTED)
+                .timestamp(LocalDateTime.now())
+                .build());
+    }
 //    public static EntityModel<ResponseEntity<Response>> okHal(Object userData){
 //        EntityModel<ResponseEntity<Response>> entityModel = EntityModel.of(
 //                ResponseEntity.ok(
@@ -17,4 +17,5 @@ public class Response<T> {
     private String message;
     private LocalDateTime timestamp;
     private String token;
+    private String refreshToken;
 }
\ No newline at end of file
@@ -0,0 +1,49 @@
+package com.seven.auth.util;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import io.jsonwebtoken.io.DeserializationException;
+import io.jsonwebtoken.io.Deserializer;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * jjwt deserializer that reads a token segment in a single streaming pass, binding registered claims
+ * straight to their types (e.g. "principal" to an account record) and everything else as plain JSON values.
+ * This replaces the decode-to-map then objectMapper.convertValue round trip on the request path.
+ */
+public class ClaimsDeserializer implements Deserializer<Map<String, ?>> {
+    private final ObjectMapper objectMapper;
+    private final ObjectReader untypedReader;
+    private final Map<String, ObjectReader> claimReaders = new HashMap<>();
+
+    public ClaimsDeserializer(ObjectMapper objectMapper, Map<String, JavaType> claimTypes) {
+        this.objectMapper = objectMapper;
+        this.untypedReader = objectMapper.readerFor(Object.class);
+        claimTypes.forEach((claim, type) -> claimReaders.put(claim, objectMapper.readerFor(type)));
+    }
+
+    @Override
+    public Map<String, ?> deserialize(byte[] bytes) throws DeserializationException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(bytes)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT)
+                throw new DeserializationException("Token segment is not a JSON object");
+
+            Map<String, Object> claims = new LinkedHashMap<>();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String claim = parser.currentName();
+                parser.nextToken();
+                claims.put(claim, claimReaders.getOrDefault(claim, untypedReader).readValue(parser));
+            }
+            return claims;
+        } catch (IOException e) {
+            throw new DeserializationException("Unable to deserialize token segment: " + e.getMessage(), e);
+        }
+    }
+}
@@ -4,5 +4,6 @@ public class Constants {
     public static final String PUBLIC_SCHEMA = "public";
     public static final String TENANT_MIGRATION_SCRIPTS_PATH = "classpath:db/migrations/tenants/%s";
     public static final String TENANT_ID_KEY = "X-Tenant-Id";
+    public static final String IDEMPOTENCY_KEY = "Idempotency-Key";
     public static final String PATH_PREFIX = "/api";
 }
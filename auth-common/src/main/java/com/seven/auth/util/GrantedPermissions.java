@@ -0,0 +1,85 @@
+package com.seven.auth.util;
+
+import com.seven.auth.dto.permission.PermissionDictionary;
+
+import java.util.Base64;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The permissions carried by an access token, as exposed to the authorization interceptors
+ * through the "permissions" request attribute.
+ */
+public interface GrantedPermissions {
+    boolean contains(String permission);
+
+    /**
+     * @return the granted permission names, decoding a bitmap if need be
+     */
+    List<String> names();
+
+    static GrantedPermissions of(Collection<String> permissions) {
+        return new Named(Set.copyOf(permissions));
+    }
+
+    static GrantedPermissions of(String bitmap, PermissionDictionary dictionary) {
+        return new Bitmap(Base64.getUrlDecoder().decode(bitmap), dictionary);
+    }
+
+    /**
+     * Encodes the given permissions as a base64url bitmap over the dictionary's indices.
+     *
+     * @return the bitmap, or null if the dictionary does not know one of the permissions
+     */
+    static String encode(Collection<String> permissions, PermissionDictionary dictionary) {
+        byte[] bits = new byte[(dictionary.getVersion() + 7) >>> 3];
+        for (String permission : permissions) {
+            int index = dictionary.indexOf(permission);
+            if (index < 0) return null;
+            bits[index >>> 3] |= (byte) (1 << (index & 7));
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bits);
+    }
+
+    record Named(Set<String> permissions) implements GrantedPermissions {
+        @Override
+        public boolean contains(String permission) {
+            return permissions.contains(permission);
+        }
+
+        @Override
+        public List<String> names() {
+            return List.copyOf(permissions);
+        }
+
+        @Override
+        public String toString() {
+            return permissions.toString();
+        }
+    }
+
+    record Bitmap(byte[] bits, PermissionDictionary dictionary) implements GrantedPermissions {
+        @Override
+        public boolean contains(String permission) {
+            int index = dictionary.indexOf(permission);
+            return index >= 0 && (index >>> 3) < bits.length && (bits[index >>> 3] & (1 << (index & 7))) != 0;
+        }
+
+        @Override
+        public List<String> names() {
+            List<String> names = new ArrayList<>();
+            List<String> permissions = dictionary.getPermissions();
+            for (int i = 0; i < bits.length << 3 && i < permissions.size(); i++) {
+                if ((bits[i >>> 3] & (1 << (i & 7))) != 0 && permissions.get(i) != null) names.add(permissions.get(i));
+            }
+            return names;
+        }
+
+        @Override
+        public String toString() {
+            return names().toString();
+        }
+    }
+}
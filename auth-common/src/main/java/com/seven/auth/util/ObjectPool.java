@@ -0,0 +1,38 @@
+package com.seven.auth.util;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.function.Supplier;
+
+/**
+ * A small bounded pool of objects that are costly to create and not thread-safe, such as Mac, Signature
+ * or MessageDigest instances.
+ * <p>
+ * Unlike a ThreadLocal it keeps its objects when each task runs on a fresh virtual thread. Borrowing
+ * never blocks: an empty pool creates a new object, and objects released into a full pool are dropped.
+ * Callers return an object in the state they found it, e.g. after a completed digest.
+ */
+public class ObjectPool<T> {
+    private final Supplier<T> factory;
+    private final ArrayBlockingQueue<T> idle;
+
+    /**
+     * Keeps up to twice as many objects as there are processors, which covers CPU-bound use of them
+     */
+    public ObjectPool(Supplier<T> factory) {
+        this(factory, 2 * Runtime.getRuntime().availableProcessors());
+    }
+
+    public ObjectPool(Supplier<T> factory, int capacity) {
+        this.factory = factory;
+        this.idle = new ArrayBlockingQueue<>(capacity);
+    }
+
+    public T borrow() {
+        T object = idle.poll();
+        return object != null ? object : factory.get();
+    }
+
+    public void release(T object) {
+        idle.offer(object);
+    }
+}
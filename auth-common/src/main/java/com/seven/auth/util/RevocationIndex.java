@@ -0,0 +1,132 @@
+package com.seven.auth.util;
+
+import com.seven.auth.dto.jwt.RevokedTokens;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * In-memory index of revoked token ids (jti), fronted by a Bloom filter.
+ * <p>
+ * The Bloom filter answers the common "not revoked" case from a few bit reads, without allocating;
+ * only a positive is confirmed against the exact map of jti to expiry. Entries are pruned once their
+ * token has expired, since an expired token is rejected anyway, and the filter is rebuilt to match.
+ * The index is fed incrementally from revocation sequence numbers and never queried remotely per request.
+ */
+public final class RevocationIndex {
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    private final int expectedInsertions;
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+    private volatile Bloom bloom;
+    private volatile long lastSeq;
+
+    public RevocationIndex(int expectedInsertions) {
+        this.expectedInsertions = Math.max(expectedInsertions, 64);
+        this.bloom = new Bloom(this.expectedInsertions);
+    }
+
+    public boolean isRevoked(String jti) {
+        return jti != null && bloom.mightContain(jti) && revoked.containsKey(jti);
+    }
+
+    public synchronized void add(String jti, long expiresAt) {
+        //The exact entry is published before the filter bits, so a filter hit always finds it
+        if (revoked.put(jti, expiresAt) != null) return;
+        if (revoked.size() > bloom.capacity) rebuild();
+        else bloom.put(jti);
+    }
+
+    public synchronized void apply(RevokedTokens revokedTokens) {
+        for (RevokedTokens.Entry entry : revokedTokens.revocations()) add(entry.jti(), entry.expiresAt());
+        lastSeq = Math.max(lastSeq, revokedTokens.seq());
+    }
+
+    /**
+     * @return the highest settled revocation sequence number applied so far
+     */
+    public long lastSeq() {
+        return lastSeq;
+    }
+
+    public int size() {
+        return revoked.size();
+    }
+
+    /**
+     * Drops revocations of tokens that expired before now; the filter is rebuilt if anything was dropped
+     */
+    public synchronized int prune(long now) {
+        int before = revoked.size();
+        revoked.values().removeIf(expiresAt -> expiresAt <= now);
+        int pruned = before - revoked.size();
+        if (pruned > 0) rebuild();
+        return pruned;
+    }
+
+    private void rebuild() {
+        Bloom rebuilt = new Bloom(Math.max(expectedInsertions, revoked.size() * 2));
+        revoked.keySet().forEach(rebuilt::put);
+        bloom = rebuilt;
+    }
+
+    private static final class Bloom {
+        private final int capacity;
+        private final long numBits;
+        private final int numHashes;
+        private final AtomicLongArray bits;
+
+        Bloom(int capacity) {
+            this.capacity = capacity;
+            long m = (long) Math.ceil(-capacity * Math.log(FALSE_POSITIVE_RATE) / (Math.log(2) * Math.log(2)));
+            this.bits = new AtomicLongArray((int) ((m + 63) >>> 6));
+            this.numBits = (long) bits.length() << 6;
+            this.numHashes = Math.max(1, (int) Math.round((double) numBits / capacity * Math.log(2)));
+        }
+
+        void put(String key) {
+            long h1 = mix(key.hashCode());
+            long h2 = secondHash(key);
+            for (int i = 0; i < numHashes; i++) {
+                long bit = Math.floorMod(h1 + i * h2, numBits);
+                int index = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                long word;
+                do {
+                    word = bits.get(index);
+                    if ((word & mask) != 0) break;
+                } while (!bits.compareAndSet(index, word, word | mask));
+            }
+        }
+
+        boolean mightContain(String key) {
+            long h1 = mix(key.hashCode());
+            long h2 = secondHash(key);
+            for (int i = 0; i < numHashes; i++) {
+                long bit = Math.floorMod(h1 + i * h2, numBits);
+                if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) return false;
+            }
+            return true;
+        }
+
+        private static long secondHash(String key) {
+            //FNV-1a over the chars; independent of String.hashCode and allocation-free
+            long h = 0xcbf29ce484222325L;
+            for (int i = 0; i < key.length(); i++) {
+                h ^= key.charAt(i);
+                h *= 0x100000001b3L;
+            }
+            return mix(h) | 1;
+        }
+
+        private static long mix(long h) {
+            h ^= h >>> 33;
+            h *= 0xff51afd7ed558ccdL;
+            h ^= h >>> 33;
+            h *= 0xc4ceb93fe1a85ec3L;
+            h ^= h >>> 33;
+            return h;
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.seven.auth.account;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
 import com.seven.auth.config.authorization.Authorize;
 import com.seven.auth.dto.response.Response;
 import com.seven.auth.exception.AuthorizationException;
@@ -7,11 +9,16 @@ import com.seven.auth.permission.PEnum;
 import com.seven.auth.util.Constants;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.enums.ParameterIn;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.UUID;
 
 import static com.seven.auth.dto.response.Responder.noContent;
@@ -20,9 +27,15 @@ import static com.seven.auth.dto.response.Responder.ok;
 @RestController
 @RequestMapping(Constants.PATH_PREFIX+"/accounts")
 public class AccountController {
+    private static final String NDJSON = "application/x-ndjson";
+
     AccountService accountService;
-    public AccountController(AccountService accountService) {
+    AccountImportService accountImportService;
+    ObjectMapper objectMapper;
+    public AccountController(AccountService accountService, AccountImportService accountImportService, ObjectMapper objectMapper) {
         this.accountService = accountService;
+        this.accountImportService = accountImportService;
+        this.objectMapper = objectMapper;
     }
 
     @GetMapping("{accountId}")
@@ -49,6 +62,34 @@ public class AccountController {
         return ok(record);
     }
 
+    /**
+     * Streams one result line per imported row as each batch completes, flushed once per batch, followed by a summary line
+     */
+    @PostMapping(value = "import", consumes = {NDJSON, "text/csv"}, produces = NDJSON)
+    @Parameter(name = Constants.TENANT_ID_KEY, in = ParameterIn.HEADER, required = true)
+    @Authorize(permissions = {PEnum.create_account, PEnum.super_create})
+    public void importResources(HttpServletRequest request, HttpServletResponse response) throws AuthorizationException, IOException {
+        AccountImportService.Format format = MediaType.parseMediaType(request.getContentType()).isCompatibleWith(MediaType.parseMediaType("text/csv"))
+                ? AccountImportService.Format.CSV : AccountImportService.Format.NDJSON;
+        response.setContentType(NDJSON);
+        try (SequenceWriter writer = objectMapper.writer().withRootValueSeparator("\n").writeValues(response.getOutputStream())) {
+            AccountDTO.ImportSummary summary = accountImportService.importAccounts(request.getInputStream(), format, result -> {
+                try {
+                    writer.write(result);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, () -> {
+                try {
+                    writer.flush();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            writer.write(summary);
+        }
+    }
+
     @DeleteMapping("{accountId}")
     @Parameter(name = Constants.TENANT_ID_KEY, in = ParameterIn.HEADER)
     @Authorize(permissions = {PEnum.super_delete})
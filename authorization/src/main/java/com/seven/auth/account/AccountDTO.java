@@ -1,5 +1,6 @@
 package com.seven.auth.account;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.seven.auth.dto.account.IAccount;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -38,6 +39,37 @@ public class AccountDTO {
     ) implements IAccount.Request{
     }
 
+    /**
+     * A row of a bulk import; passwordHash carries an existing BCrypt hash, e.g. when migrating from another
+     * system, and is stored as is instead of hashing password
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    @Schema(name = "AccountImportRow")
+    public record Import(
+            String firstName,
+            String lastName,
+            String phoneNo,
+            String email,
+            String password,
+            String passwordHash,
+            LocalDate dob
+    ) {
+        public Create toCreate() {
+            return new Create(firstName, lastName, phoneNo, email, password, dob);
+        }
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @Schema(name = "AccountImportResult")
+    public record ImportResult(long line, String email, ImportStatus status, String message) {
+    }
+
+    public enum ImportStatus {CREATED, DUPLICATE, INVALID, FAILED}
+
+    @Schema(name = "AccountImportSummary")
+    public record ImportSummary(long rows, long created, long duplicates, long invalid, long failed) {
+    }
+
     @Validated
     @JsonInclude(JsonInclude.Include.NON_NULL)
     @Schema(name = "AccountUpdateRequest")
@@ -0,0 +1,303 @@
+package com.seven.auth.account;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.seven.auth.config.threadlocal.TenantContext;
+import com.seven.auth.exception.AuthorizationException;
+import com.seven.auth.exception.ClientException;
+import com.seven.auth.password.PasswordHashingService;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.env.Environment;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Imports accounts into the current tenant from an NDJSON or CSV stream, one batch at a time, so that
+ * the body is never held in memory.
+ * <p>
+ * For each batch, rows are validated, deduplicated within the batch and against the tenant's existing
+ * emails, hashed in parallel on the password hashing pool (rows carrying a passwordHash skip hashing)
+ * and written with a single JDBC batch insert in a short transaction. Rows are checked against the
+ * auth_account column constraints up front; should a batch insert still fail, its rows are retried one by
+ * one so that only the offending rows are reported FAILED. Every row gets an {@link AccountDTO.ImportResult}
+ * as soon as its batch is done.
+ */
+@Service
+public class AccountImportService {
+    private final Logger log = LoggerFactory.getLogger(getClass());
+    private static final Pattern SCHEMA_NAME = Pattern.compile("^\\w{1,63}$");
+    //Hashes the {bcrypt}-only DelegatingPasswordEncoder can verify, prefixed or legacy
+    private static final Pattern BCRYPT_HASH = Pattern.compile("^(\\{bcrypt})?\\$2[aby]\\$\\d{2}\\$[./A-Za-z0-9]{53}$");
+    //Column widths of auth_account
+    private static final int MAX_EMAIL = 255, MAX_PHONE_NO = 20;
+
+    public enum Format {NDJSON, CSV}
+
+    private static final String INSERT_SQL = "INSERT INTO \"%s\".auth_account(id, first_name, last_name, email, status, phone_no, dob, password, is_deleted, date_created, created_by, date_updated, updated_by) " +
+            "VALUES(?, ?, ?, ?, ?, ?, ?, ?, false, CURRENT_TIMESTAMP, ?, CURRENT_TIMESTAMP, ?) ON CONFLICT (email) DO NOTHING";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PasswordHashingService passwordHashingService;
+    private final Validator validator;
+    private final ObjectReader ndjsonReader;
+    private final ObjectReader csvReader;
+    private final int batchSize;
+    private final int hashParallelism;
+
+    public AccountImportService(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, PasswordHashingService passwordHashingService,
+                                Validator validator, ObjectMapper objectMapper, Environment environment) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.passwordHashingService = passwordHashingService;
+        this.validator = validator;
+        this.ndjsonReader = objectMapper.readerFor(AccountDTO.Import.class).without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        CsvMapper csvMapper = new CsvMapper();
+        csvMapper.registerModule(new JavaTimeModule());
+        this.csvReader = csvMapper.readerFor(AccountDTO.Import.class)
+                .with(CsvSchema.emptySchema().withHeader())
+                .with(CsvParser.Feature.EMPTY_STRING_AS_NULL)
+                .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        this.batchSize = environment.getProperty("authentication.account-import.batch-size", Integer.class, 500);
+        this.hashParallelism = environment.getProperty("authentication.account-import.hash-parallelism", Integer.class,
+                Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+    }
+
+    private record Row(long line, AccountDTO.Import account) {
+    }
+
+    /**
+     * @param results   receives every row's result
+     * @param batchDone runs once a batch's results are all out, e.g. to flush them to the client in one go
+     */
+    public AccountDTO.ImportSummary importAccounts(InputStream body, Format format, Consumer<AccountDTO.ImportResult> results, Runnable batchDone) throws AuthorizationException {
+        String tenant = TenantContext.getCurrentTenant();
+        if (!SCHEMA_NAME.matcher(tenant).matches())
+            throw new ClientException("Invalid tenant %s".formatted(tenant));
+        String createdBy = principalEmail();
+        log.info("Importing accounts into Tenant: {} from {}", tenant, format);
+
+        Counts counts = new Counts(results);
+        try (MappingIterator<AccountDTO.Import> rows = (format == Format.CSV ? csvReader : ndjsonReader).readValues(body)) {
+            List<Row> batch = new ArrayList<>(batchSize);
+            while (true) {
+                long line = rows.getCurrentLocation().getLineNr();
+                try {
+                    if (!rows.hasNextValue()) break;
+                    line = rows.getCurrentLocation().getLineNr();
+                    batch.add(new Row(line, rows.nextValue()));
+                } catch (JsonProcessingException | RuntimeException e) {
+                    //Field-level errors leave the stream positioned at the next row; anything else ends the import
+                    counts.report(new AccountDTO.ImportResult(line, null, AccountDTO.ImportStatus.INVALID, e.getMessage()));
+                    if (!(e instanceof JsonMappingException)) break;
+                    continue;
+                }
+                if (batch.size() == batchSize) {
+                    importBatch(tenant, createdBy, batch, counts);
+                    batch.clear();
+                    batchDone.run();
+                }
+            }
+            if (!batch.isEmpty()) importBatch(tenant, createdBy, batch, counts);
+        } catch (IOException e) {
+            log.error("Unable to read account import for Tenant: {}. Message: {}", tenant, e.getMessage());
+            counts.report(new AccountDTO.ImportResult(-1, null, AccountDTO.ImportStatus.FAILED, e.getMessage()));
+        }
+
+        AccountDTO.ImportSummary summary = counts.summary();
+        log.info("Account import into Tenant: {} done: {}", tenant, summary);
+        return summary;
+    }
+
+    private void importBatch(String tenant, String createdBy, List<Row> batch, Counts counts) {
+        //Validate and drop duplicates within the batch
+        List<Row> valid = new ArrayList<>(batch.size());
+        Set<String> emails = new HashSet<>();
+        for (Row row : batch) {
+            String violation = validate(row.account());
+            if (violation != null) {
+                counts.report(new AccountDTO.ImportResult(row.line(), row.account().email(), AccountDTO.ImportStatus.INVALID, violation));
+            } else if (!emails.add(row.account().email())) {
+                counts.report(new AccountDTO.ImportResult(row.line(), row.account().email(), AccountDTO.ImportStatus.DUPLICATE, "Duplicate email in import"));
+            } else {
+                valid.add(row);
+            }
+        }
+        if (valid.isEmpty()) return;
+
+        try {
+            //Drop emails the tenant already has before spending any hashing on them
+            Set<String> existing = new HashSet<>(jdbcTemplate.queryForList(
+                    "SELECT email FROM \"%s\".auth_account WHERE email IN (%s)".formatted(tenant, String.join(",", Collections.nCopies(emails.size(), "?"))),
+                    String.class, emails.toArray()));
+            List<Row> fresh = new ArrayList<>(valid.size());
+            for (Row row : valid) {
+                if (existing.contains(row.account().email()))
+                    counts.report(new AccountDTO.ImportResult(row.line(), row.account().email(), AccountDTO.ImportStatus.DUPLICATE, "An account with this email already exists"));
+                else fresh.add(row);
+            }
+            if (fresh.isEmpty()) return;
+
+            List<String> passwords = passwords(fresh);
+            int[] inserted;
+            try {
+                inserted = transactionTemplate.execute(status -> jdbcTemplate.batchUpdate(INSERT_SQL.formatted(tenant), new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        setRow(ps, fresh.get(i).account(), passwords.get(i), createdBy);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return fresh.size();
+                    }
+                }));
+            } catch (DataAccessException e) {
+                log.warn("Batch insert into Tenant: {} failed, retrying {} row(s) one by one. Message: {}", tenant, fresh.size(), e.getMessage());
+                insertEach(tenant, createdBy, fresh, passwords, counts);
+                return;
+            }
+            for (int i = 0; i < fresh.size(); i++) {
+                Row row = fresh.get(i);
+                //0 means a concurrent writer inserted the email first
+                report(row, inserted == null || inserted[i] > 0 || inserted[i] == Statement.SUCCESS_NO_INFO, counts);
+            }
+        } catch (Exception e) {
+            log.error("Unable to import batch of {} account(s) into Tenant: {}. Message: {}", valid.size(), tenant, e.getMessage());
+            for (Row row : valid) {
+                counts.report(new AccountDTO.ImportResult(row.line(), row.account().email(), AccountDTO.ImportStatus.FAILED, e.getMessage()));
+            }
+        }
+    }
+
+    /**
+     * Inserts rows in a transaction each, so that a row the database rejects fails alone
+     */
+    private void insertEach(String tenant, String createdBy, List<Row> rows, List<String> passwords, Counts counts) {
+        for (int i = 0; i < rows.size(); i++) {
+            Row row = rows.get(i);
+            String password = passwords.get(i);
+            try {
+                Integer inserted = transactionTemplate.execute(status ->
+                        jdbcTemplate.update(INSERT_SQL.formatted(tenant), ps -> setRow(ps, row.account(), password, createdBy)));
+                report(row, inserted == null || inserted > 0, counts);
+            } catch (DataAccessException e) {
+                counts.report(new AccountDTO.ImportResult(row.line(), row.account().email(), AccountDTO.ImportStatus.FAILED, e.getMostSpecificCause().getMessage()));
+            }
+        }
+    }
+
+    private static void setRow(PreparedStatement ps, AccountDTO.Import account, String password, String createdBy) throws SQLException {
+        ps.setObject(1, UUID.randomUUID());
+        ps.setString(2, account.firstName());
+        ps.setString(3, account.lastName());
+        ps.setString(4, account.email());
+        ps.setString(5, Account.AccountStatus.INACTIVE.toString());
+        ps.setString(6, account.phoneNo());
+        ps.setDate(7, account.dob() == null ? null : Date.valueOf(account.dob()));
+        ps.setString(8, password);
+        ps.setString(9, createdBy);
+        ps.setString(10, createdBy);
+    }
+
+    private static void report(Row row, boolean created, Counts counts) {
+        counts.report(new AccountDTO.ImportResult(row.line(), row.account().email(),
+                created ? AccountDTO.ImportStatus.CREATED : AccountDTO.ImportStatus.DUPLICATE,
+                created ? null : "An account with this email already exists"));
+    }
+
+    /**
+     * Hashes the plain passwords of a batch in parallel; supplied hashes are kept as they are
+     */
+    private List<String> passwords(List<Row> rows) throws AuthorizationException {
+        List<String> plain = rows.stream().map(Row::account).filter(a -> a.passwordHash() == null).map(AccountDTO.Import::password).toList();
+        List<String> hashed = passwordHashingService.hashAll(plain, hashParallelism);
+        List<String> passwords = new ArrayList<>(rows.size());
+        int next = 0;
+        for (Row row : rows) {
+            passwords.add(row.account().passwordHash() != null ? row.account().passwordHash() : hashed.get(next++));
+        }
+        return passwords;
+    }
+
+    private String validate(AccountDTO.Import account) {
+        Set<ConstraintViolation<AccountDTO.Create>> violations = validator.validate(account.toCreate());
+        if (!violations.isEmpty())
+            return violations.stream().map(v -> v.getPropertyPath() + ": " + v.getMessage()).sorted().collect(Collectors.joining("; "));
+        if (account.password() == null && account.passwordHash() == null)
+            return "password: Required field";
+        if (account.passwordHash() != null && !BCRYPT_HASH.matcher(account.passwordHash()).matches())
+            return "passwordHash: Must be a BCrypt hash, optionally prefixed with {bcrypt}";
+        //Limits of the columns that the request constraints leave open
+        if (account.dob() == null)
+            return "dob: Required field";
+        if (account.phoneNo().length() > MAX_PHONE_NO)
+            return "phoneNo: At most %d characters".formatted(MAX_PHONE_NO);
+        if (account.email().length() > MAX_EMAIL)
+            return "email: At most %d characters".formatted(MAX_EMAIL);
+        return null;
+    }
+
+    private static String principalEmail() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || authentication instanceof AnonymousAuthenticationToken) return null;
+        return authentication.getPrincipal() instanceof AccountDTO.Record principal ? principal.email() : null;
+    }
+
+    private static final class Counts {
+        private final Consumer<AccountDTO.ImportResult> results;
+        private long rows, created, duplicates, invalid, failed;
+
+        Counts(Consumer<AccountDTO.ImportResult> results) {
+            this.results = results;
+        }
+
+        void report(AccountDTO.ImportResult result) {
+            rows++;
+            switch (result.status()) {
+                case CREATED -> created++;
+                case DUPLICATE -> duplicates++;
+                case INVALID -> invalid++;
+                case FAILED -> failed++;
+            }
+            results.accept(result);
+        }
+
+        AccountDTO.ImportSummary summary() {
+            return new AccountDTO.ImportSummary(rows, created, duplicates, invalid, failed);
+        }
+    }
+}
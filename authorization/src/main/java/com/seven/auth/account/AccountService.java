@@ -7,6 +7,7 @@ import com.seven.auth.exception.AuthorizationException;
 import com.seven.auth.exception.ClientException;
 import com.seven.auth.exception.ConflictException;
 import com.seven.auth.exception.NotFoundException;
+import com.seven.auth.password.PasswordHashingService;
 import com.seven.auth.util.Constants;
 import com.seven.auth.util.Pagination;
 import jakarta.persistence.EntityManager;
@@ -19,13 +20,9 @@ import org.springframework.security.authentication.AnonymousAuthenticationToken;
 import org.springframework.security.authentication.RememberMeAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsPasswordService;
-import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.Set;
 import java.util.UUID;
@@ -33,19 +30,22 @@ import java.util.stream.Collectors;
 
 @Service
 @Slf4j
-public class AccountService implements UserDetailsService, UserDetailsPasswordService {
+public class AccountService {
     private final AccountRepository accountRepository;
-    private final BCryptPasswordEncoder bCryptPasswordEncoder;
+    private final PasswordHashingService passwordHashingService;
     private final EntityManager em;
     private final ApplicationRepository applicationRepository;
+    private final TransactionTemplate transactionTemplate;
 
 
     public AccountService(AccountRepository accountRepository,
-                          BCryptPasswordEncoder passwordEncoder, EntityManager em, ApplicationRepository applicationRepository) {
+                          PasswordHashingService passwordHashingService, EntityManager em, ApplicationRepository applicationRepository,
+                          TransactionTemplate transactionTemplate) {
         this.accountRepository = accountRepository;
-        this.bCryptPasswordEncoder = passwordEncoder;
+        this.passwordHashingService = passwordHashingService;
         this.em = em;
         this.applicationRepository = applicationRepository;
+        this.transactionTemplate = transactionTemplate;
     }
 
     public Page<AccountDTO.Record> getAll(Pagination pagination, AccountDTO.Filter accountFilter) throws AuthorizationException {
@@ -82,22 +82,14 @@ public class AccountService implements UserDetailsService, UserDetailsPasswordSe
         }
     }
 
-    @Transactional
+    /**
+     * Creates an account. Not transactional: the email check and the insert each run in their own short
+     * transaction, so no pooled connection is held while the password is hashed.
+     */
     public AccountDTO.Record create(AccountDTO.Create accountCreateRequest) throws AuthorizationException {
         try {
             log.info("Creating account: {} in schema: {}", accountCreateRequest.email(), TenantContext.getCurrentTenant());
-            if (accountRepository.existsByEmail(accountCreateRequest.email()))
-                throw new ConflictException("An account with this email already exists");
-
-            Account account = Account.from(accountCreateRequest);
-
-            //Encode password
-            account.setPassword(bCryptPasswordEncoder.encode(accountCreateRequest.password()));
-
-            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-            String principalEmail = isUserUnauthenticated(authentication) ? accountCreateRequest.email(): ((AccountDTO.Record) authentication.getPrincipal()).email();
-            account.setCreatedBy(principalEmail);
-            account.setUpdatedBy(principalEmail);
+            Account account = prepare(accountCreateRequest);
 
             account = accountRepository.saveAndFlush(account);
             AccountDTO.Record record = AccountDTO.Record.from(account);
@@ -113,54 +105,84 @@ public class AccountService implements UserDetailsService, UserDetailsPasswordSe
         }
     }
 
+    /**
+     * Checks the email is free and builds the account with its password hashed, outside any transaction
+     */
+    private Account prepare(AccountDTO.Create accountCreateRequest) throws AuthorizationException {
+        if (accountRepository.existsByEmail(accountCreateRequest.email()))
+            throw new ConflictException("An account with this email already exists");
+
+        Account account = Account.from(accountCreateRequest);
+
+        //Encode password
+        account.setPassword(passwordHashingService.hash(accountCreateRequest.password()));
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String principalEmail = isUserUnauthenticated(authentication) ? accountCreateRequest.email(): ((AccountDTO.Record) authentication.getPrincipal()).email();
+        account.setCreatedBy(principalEmail);
+        account.setUpdatedBy(principalEmail);
+        return account;
+    }
+
     private static boolean isUserUnauthenticated(Authentication authentication) {
         return authentication instanceof AnonymousAuthenticationToken || authentication instanceof RememberMeAuthenticationToken;
     }
 
-    @Transactional
+    /**
+     * Creates a superuser in the public schema and every tenant schema. The password is hashed first;
+     * only the inserts share a transaction.
+     */
     public AccountDTO.Record createSuper(AccountDTO.Create accountCreateRequest) throws AuthorizationException {
         try {
             log.info("Creating Superuser: {} in schema: {}", accountCreateRequest.email(), TenantContext.getCurrentTenant());
-            //Persist in public schema
-            AccountDTO.Record accountRecord = create(accountCreateRequest);
-
-            //Get all registered schemas/tenants
-            Set<String> tenants = applicationRepository.findAll().stream().map(Application::getSchemaName).collect(Collectors.toSet());
-            tenants.remove(Constants.PUBLIC_SCHEMA);
-
-            String sqlTemplate = "INSERT INTO \"%s\".auth_account(id, first_name, last_name, email, status,  phone_no, dob, password, is_deleted, date_created, created_by, date_updated, updated_by)" +
-                    "VALUES(:id, :firstName, :lastName, :email, :status, :phoneNo, :dob, :password, :isDeleted, CURRENT_TIMESTAMP, :createdBy, CURRENT_TIMESTAMP, :updatedBy);";
-            String sql;
-            for (String tenant : tenants) {
-                boolean exists = (Boolean) em.createNativeQuery("SELECT EXISTS(SELECT 1 FROM \"%s\".auth_account WHERE email = '%s');".formatted(tenant, accountCreateRequest.email())).getSingleResult();
-                log.info("Already exists in {} : {}; {}", tenant, exists, exists ? "Skipping..." : "Creating...");
-                if (!exists) {
-                    sql = sqlTemplate.formatted(tenant);
-
-                    em.createNativeQuery(sql)
-                            .setParameter("id", accountRecord.id())
-                            .setParameter("firstName", accountRecord.firstName())
-                            .setParameter("lastName", accountRecord.lastName())
-                            .setParameter("email", accountRecord.email())
-                            .setParameter("status", Account.AccountStatus.INACTIVE.toString())
-                            .setParameter("dob", accountRecord.dob())
-                            .setParameter("phoneNo", accountRecord.phoneNo())
-                            .setParameter("password", "_")
-                            .setParameter("isDeleted", false)
-                            .setParameter("createdBy", accountRecord.createdBy())
-                            .setParameter("updatedBy", accountRecord.updatedBy())
-                            .executeUpdate();
-                }
-            }
-
-            assignRootRole(accountRecord);
+            Account account = prepare(accountCreateRequest);
+
+            AccountDTO.Record accountRecord = transactionTemplate.execute(status -> {
+                //Persist in public schema; tenant rows are written with schema-qualified names
+                AccountDTO.Record record = AccountDTO.Record.from(accountRepository.saveAndFlush(account));
+                populateTenants(record);
+                assignRootRole(record);
+                return record;
+            });
             log.info("Tenant schemas populated with new superuser: {}", accountCreateRequest.email());
             return accountRecord;
+        } catch (AuthorizationException e) {
+            log.error("Unable to create accounts. Message: {}", e.getMessage());
+            throw e;
         } catch (Exception e) {
             log.error("Unable to create accounts. Message: {}", e.getMessage());
             throw new ConflictException(e.getMessage());
-        } finally {
-            em.createNativeQuery("SET SCHEMA '%s';".formatted(Constants.PUBLIC_SCHEMA)).executeUpdate();
+        }
+    }
+
+    private void populateTenants(AccountDTO.Record accountRecord) {
+        //Get all registered schemas/tenants
+        Set<String> tenants = applicationRepository.findAll().stream().map(Application::getSchemaName).collect(Collectors.toSet());
+        tenants.remove(Constants.PUBLIC_SCHEMA);
+
+        String sqlTemplate = "INSERT INTO \"%s\".auth_account(id, first_name, last_name, email, status,  phone_no, dob, password, is_deleted, date_created, created_by, date_updated, updated_by)" +
+                "VALUES(:id, :firstName, :lastName, :email, :status, :phoneNo, :dob, :password, :isDeleted, CURRENT_TIMESTAMP, :createdBy, CURRENT_TIMESTAMP, :updatedBy);";
+        String sql;
+        for (String tenant : tenants) {
+            boolean exists = (Boolean) em.createNativeQuery("SELECT EXISTS(SELECT 1 FROM \"%s\".auth_account WHERE email = '%s');".formatted(tenant, accountRecord.email())).getSingleResult();
+            log.info("Already exists in {} : {}; {}", tenant, exists, exists ? "Skipping..." : "Creating...");
+            if (!exists) {
+                sql = sqlTemplate.formatted(tenant);
+
+                em.createNativeQuery(sql)
+                        .setParameter("id", accountRecord.id())
+                        .setParameter("firstName", accountRecord.firstName())
+                        .setParameter("lastName", accountRecord.lastName())
+                        .setParameter("email", accountRecord.email())
+                        .setParameter("status", Account.AccountStatus.INACTIVE.toString())
+                        .setParameter("dob", accountRecord.dob())
+                        .setParameter("phoneNo", accountRecord.phoneNo())
+                        .setParameter("password", "_")
+                        .setParameter("isDeleted", false)
+                        .setParameter("createdBy", accountRecord.createdBy())
+                        .setParameter("updatedBy", accountRecord.updatedBy())
+                        .executeUpdate();
+            }
         }
     }
 
@@ -207,17 +229,4 @@ public class AccountService implements UserDetailsService, UserDetailsPasswordSe
             throw new ConflictException(e.getMessage());
         }
     }
-
-
-    public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        return accountRepository.findByEmail(username).orElseThrow(() -> new UsernameNotFoundException("Username not found"));
-    }
-
-    @Override
-    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
-        Account account = (Account) userDetails;
-        account.setPassword(bCryptPasswordEncoder.encode(newPassword));
-        account = accountRepository.save(account);
-        return account;
-    }
-}
\ No newline at end of file
+}
@@ -6,4 +6,5 @@ import lombok.Builder;
 public class AuthDTO {
     public AccountDTO.Record data;
     public String token;
+    public String refreshToken;
 }
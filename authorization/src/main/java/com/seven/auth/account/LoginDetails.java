@@ -0,0 +1,40 @@
+package com.seven.auth.account;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * What a login needs from the database, read in a single query: the password hash, the principal
+ * written into the token and the account's effective permission names.
+ */
+public record LoginDetails(AccountDTO.Record principal, String password, List<String> permissions) implements UserDetails {
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return List.of();
+    }
+
+    @Override
+    public String getPassword() {
+        return password;
+    }
+
+    @Override
+    public String getUsername() {
+        return principal.email();
+    }
+
+    /**
+     * A copy carrying a rehashed password
+     */
+    public LoginDetails withPassword(String password) {
+        return new LoginDetails(principal, password, permissions);
+    }
+
+    @Override
+    public String toString() {
+        return "LoginDetails[" + principal.email() + "]";
+    }
+}
@@ -0,0 +1,97 @@
+package com.seven.auth.account;
+
+import com.seven.auth.config.threadlocal.RequestTimings;
+import com.seven.auth.config.threadlocal.TenantContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * The login path's view of accounts. One query against the current tenant's schema returns the
+ * password hash, the principal fields and the distinct permission names, so authenticating a user
+ * costs a single short round trip instead of an entity load followed by a permission join.
+ */
+@Service
+public class LoginDetailsService implements UserDetailsService, UserDetailsPasswordService {
+    private final Logger log = LoggerFactory.getLogger(getClass());
+    private static final Pattern SCHEMA_NAME = Pattern.compile("^\\w{1,63}$");
+    //ASCII unit separator; cannot appear in a permission name
+    private static final String SEPARATOR = "\u001F";
+
+    private static final String LOGIN_QUERY = """
+            SELECT a.id, a.first_name, a.last_name, a.phone_no, a.email, a.dob, a.date_created, a.date_updated,
+                   a.created_by, a.updated_by, a.password, string_agg(e.permission_name, E'\\x1F') AS permissions
+            FROM "%1$s".auth_account a
+            LEFT JOIN "%1$s".auth_effective_permission e ON e.account_email = a.email
+            WHERE a.email = ?
+            GROUP BY a.id""";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public LoginDetailsService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public LoginDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+        String tenant = schema();
+        List<LoginDetails> details;
+        try (RequestTimings.Phase ignored = RequestTimings.phase("lookup")) {
+            details = jdbcTemplate.query(LOGIN_QUERY.formatted(tenant), (rs, i) -> {
+                String permissions = rs.getString("permissions");
+                return new LoginDetails(
+                        new AccountDTO.Record(
+                                rs.getObject("id", UUID.class),
+                                rs.getString("first_name"),
+                                rs.getString("last_name"),
+                                rs.getString("phone_no"),
+                                rs.getString("email"),
+                                rs.getObject("dob", LocalDate.class),
+                                zoned(rs.getObject("date_created", OffsetDateTime.class)),
+                                zoned(rs.getObject("date_updated", OffsetDateTime.class)),
+                                rs.getString("created_by"),
+                                rs.getString("updated_by")),
+                        rs.getString("password"),
+                        permissions == null ? List.of() : List.of(permissions.split(SEPARATOR)));
+            }, username);
+        }
+        if (details.isEmpty()) throw new UsernameNotFoundException("Username not found");
+        return details.get(0);
+    }
+
+    /**
+     * Stores a password rehashed on login; newPassword arrives already encoded
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        log.info("Rehashing password of account: {}", user.getUsername());
+        jdbcTemplate.update("UPDATE \"%s\".auth_account SET password = ?, date_updated = CURRENT_TIMESTAMP WHERE email = ?".formatted(schema()),
+                newPassword, user.getUsername());
+        return ((LoginDetails) user).withPassword(newPassword);
+    }
+
+    private static String schema() {
+        String tenant = TenantContext.getCurrentTenant();
+        if (!SCHEMA_NAME.matcher(tenant).matches())
+            throw new UsernameNotFoundException("Username not found");
+        return tenant;
+    }
+
+    private static ZonedDateTime zoned(OffsetDateTime dateTime) {
+        return dateTime == null ? null : dateTime.toZonedDateTime();
+    }
+}
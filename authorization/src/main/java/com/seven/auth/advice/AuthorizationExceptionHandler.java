@@ -30,6 +30,10 @@ public class AuthorizationExceptionHandler {
             return forbidden(ex.getMessage());
         } else if (exClass.equals(ConflictException.class)) {
             return conflict(ex.getMessage());
+        } else if (ex instanceof TooManyRequestsException throttled) {
+            return tooManyRequests(ex.getMessage(), Math.max(1, (throttled.getRetryAfter().toMillis() + 999) / 1000));
+        } else if (ex instanceof ServiceUnavailableException unavailable) {
+            return serviceUnavailable(ex.getMessage(), Math.max(1, unavailable.getRetryAfter().toSeconds()));
         }
         return internalServerError(ex.getMessage());
     }
@@ -13,14 +13,16 @@ import org.springframework.data.domain.Page;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
 import java.util.UUID;
 
 import static com.seven.auth.dto.response.Responder.ok;
-import static com.seven.auth.dto.response.Responder.noContent;
+import static com.seven.auth.dto.response.Responder.accepted;
 
 @RestController
 @RequestMapping(Constants.PATH_PREFIX+"/applications")
 public class ApplicationController {
+    private static final String JOBS_PATH = Constants.PATH_PREFIX + "/applications/jobs/";
     private final ApplicationService applicationService;
     public ApplicationController(ApplicationService applicationService) {
         this.applicationService = applicationService;
@@ -40,17 +42,37 @@ public class ApplicationController {
         return ok(applicationDTOs);
     }
 
+    /**
+     * Provisioning runs in the background; the job reports its progress on /jobs/{jobId}
+     */
     @PostMapping
     @Authorize(permissions = PEnum.super_create)
-    public ResponseEntity <Response> createResource(@Valid @RequestBody ApplicationDTO.Create create) throws AuthorizationException {
-        ApplicationDTO.Record record = applicationService.create(create);
-        return ok(record);
+    public ResponseEntity <Response> createResource(@Valid @RequestBody ApplicationDTO.Create create,
+                                                    @RequestHeader(value = Constants.IDEMPOTENCY_KEY, required = false) String idempotencyKey) throws AuthorizationException {
+        TenantJobDTO.Record job = applicationService.create(create, idempotencyKey);
+        return accepted(job, JOBS_PATH + job.id());
     }
     
     @DeleteMapping("{applicationId}")
     @Authorize(permissions = PEnum.super_delete)
-    public ResponseEntity <Response> deleteResource(@Valid @NotNull @PathVariable(value = "applicationId") UUID id) throws AuthorizationException {
-        applicationService.delete(id);
-        return noContent();
+    public ResponseEntity <Response> deleteResource(@Valid @NotNull @PathVariable(value = "applicationId") UUID id,
+                                                    @RequestHeader(value = Constants.IDEMPOTENCY_KEY, required = false) String idempotencyKey) throws AuthorizationException {
+        TenantJobDTO.Record job = applicationService.delete(id, idempotencyKey);
+        return accepted(job, JOBS_PATH + job.id());
+    }
+
+    @GetMapping("/jobs/{jobId}")
+    @Authorize(permissions = PEnum.super_read)
+    public ResponseEntity <Response> getJob(@Valid @NotNull @PathVariable(value = "jobId") UUID jobId) throws AuthorizationException {
+        TenantJobDTO.Record job = applicationService.getJob(jobId);
+        return ok(job);
+    }
+
+    @GetMapping("/jobs")
+    @Authorize(permissions = PEnum.super_read)
+    public ResponseEntity <Response> getJobs(@RequestParam(value = "status", required = false) TenantJobDTO.Status status,
+                                             @RequestParam(value = "limit", defaultValue = "20") int limit) throws AuthorizationException {
+        List<TenantJobDTO.Record> jobs = applicationService.getJobs(status, limit);
+        return ok(jobs);
     }
 }
\ No newline at end of file
@@ -6,13 +6,13 @@ import com.seven.auth.exception.ClientException;
 import com.seven.auth.exception.NotFoundException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
 import java.util.UUID;
 
 @Service
@@ -20,11 +20,11 @@ public class ApplicationService{
     private final Logger log = LoggerFactory.getLogger(getClass());
 
     private final ApplicationRepository applicationRepository;
-    private final TenantService tenantService;
+    private final TenantJobService tenantJobService;
 
-    public ApplicationService(ApplicationRepository applicationRepository, TenantService tenantService) {
+    public ApplicationService(ApplicationRepository applicationRepository, TenantJobService tenantJobService) {
         this.applicationRepository = applicationRepository;
-        this.tenantService = tenantService;
+        this.tenantJobService = tenantJobService;
     }
 
     public Page<ApplicationDTO.Record> getAll(Pagination pagination, ApplicationDTO.Filter filter) throws AuthorizationException {
@@ -68,27 +68,25 @@ public class ApplicationService{
         }
     }
 
-    public void delete(UUID id) throws AuthorizationException {
-        log.info("Deleting Application: {} ", id);
-        try {
-            Application applicationEntity = applicationRepository.findById(id).orElseThrow(() -> {
-                log.error("Application: {} not found", id);
-                return new NotFoundException(String.format("Application: %s not found", id));
-            });
-            tenantService.dropSchema(applicationEntity);
-            applicationRepository.deleteById(id);
-            log.info("Application deleted successfully");
-        } catch (EmptyResultDataAccessException e) {
-            log.error("Application {} not found.", id);
-            throw new NotFoundException(String.format("Application %s not found", id));
-        } catch (Exception e) {
-            log.error("Exception deleting Application: {} in service layer. Trace:", id, e);
-            throw new ClientException(e.getMessage());
-        }
+    /**
+     * Queues the drop of the application's schema
+     */
+    public TenantJobDTO.Record delete(UUID id, String idempotencyKey) throws AuthorizationException {
+        return tenantJobService.enqueueDrop(id, idempotencyKey);
     }
 
-    public ApplicationDTO.Record create(ApplicationDTO.Create create) throws AuthorizationException {
-        return tenantService.register(create);
+    /**
+     * Queues the provisioning of the application's schema
+     */
+    public TenantJobDTO.Record create(ApplicationDTO.Create create, String idempotencyKey) throws AuthorizationException {
+        return tenantJobService.enqueueProvision(create, idempotencyKey);
+    }
+
+    public TenantJobDTO.Record getJob(UUID jobId) throws AuthorizationException {
+        return tenantJobService.get(jobId);
     }
-}
 
+    public List<TenantJobDTO.Record> getJobs(TenantJobDTO.Status status, int limit) throws AuthorizationException {
+        return tenantJobService.getAll(status, limit);
+    }
+}
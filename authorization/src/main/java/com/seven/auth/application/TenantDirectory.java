@@ -0,0 +1,212 @@
+package com.seven.auth.application;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Maps tenant ids to schema names for request routing without a database round trip.
+ * <p>
+ * The directory is an immutable snapshot of public.auth_application, replaced whole on every change. Tenants
+ * registered or deleted on this instance are applied at once and announced on the "auth_tenant_directory"
+ * channel; a background listener reloads the snapshot when any instance announces a change, and every
+ * "refresh-interval" regardless. While the listener is connected the snapshot is complete, so an unknown id
+ * is rejected without touching the database. Otherwise a miss falls back to a single-row lookup. Either way,
+ * unknown ids are remembered for "negative-ttl" and a notification for the id clears that.
+ */
+@Service
+public class TenantDirectory {
+    private static final Logger log = LoggerFactory.getLogger(TenantDirectory.class);
+    private static final String CHANNEL = "auth_tenant_directory";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final DataSource dataSource;
+    private final boolean listen;
+    private final Duration refreshInterval;
+    private final Cache<UUID, Boolean> unknown;
+    private volatile Map<UUID, String> tenants = Map.of();
+    private volatile boolean listening;
+    private ExecutorService listener;
+
+    public TenantDirectory(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, DataSource dataSource, Environment environment) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.dataSource = dataSource;
+        this.listen = environment.getProperty("authentication.tenant-directory.listen", Boolean.class, true);
+        this.refreshInterval = environment.getProperty("authentication.tenant-directory.refresh-interval", Duration.class, Duration.ofMinutes(5));
+        this.unknown = Caffeine.newBuilder()
+                .maximumSize(environment.getProperty("authentication.tenant-directory.negative-max-size", Long.class, 10_000L))
+                .expireAfterWrite(environment.getProperty("authentication.tenant-directory.negative-ttl", Duration.class, Duration.ofSeconds(30)))
+                .build();
+    }
+
+    @PostConstruct
+    public void startListener() {
+        if (!listen) return;
+        listener = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "tenant-directory");
+            thread.setDaemon(true);
+            return thread;
+        });
+        listener.execute(this::listen);
+    }
+
+    @PreDestroy
+    public void stopListener() {
+        if (listener != null) listener.shutdownNow();
+    }
+
+    /**
+     * @return the schema of the tenant, or empty if no such tenant exists
+     */
+    public Optional<String> schemaOf(UUID tenantId) {
+        String schema = tenants.get(tenantId);
+        if (schema != null) return Optional.of(schema);
+        if (unknown.getIfPresent(tenantId) != null) return Optional.empty();
+
+        if (!listening) {
+            List<String> found = jdbcTemplate.queryForList("SELECT schema_name FROM public.auth_application WHERE id = ?", String.class, tenantId);
+            if (!found.isEmpty()) {
+                put(tenantId, found.get(0));
+                return Optional.of(found.get(0));
+            }
+        }
+        log.info("Unknown Tenant: {}", tenantId);
+        unknown.put(tenantId, Boolean.TRUE);
+        return Optional.empty();
+    }
+
+    /**
+     * Replaces the whole directory
+     */
+    public void apply(Map<UUID, String> snapshot) {
+        tenants = Map.copyOf(snapshot);
+    }
+
+    public void added(UUID tenantId, String schemaName) {
+        unknown.invalidate(tenantId);
+        put(tenantId, schemaName);
+        announce(tenantId);
+    }
+
+    public void removed(UUID tenantId) {
+        synchronized (this) {
+            Map<UUID, String> next = new HashMap<>(tenants);
+            next.remove(tenantId);
+            tenants = Map.copyOf(next);
+        }
+        announce(tenantId);
+    }
+
+    private synchronized void put(UUID tenantId, String schemaName) {
+        Map<UUID, String> next = new HashMap<>(tenants);
+        next.put(tenantId, schemaName);
+        tenants = Map.copyOf(next);
+    }
+
+    private void reload() {
+        Map<UUID, String> snapshot = new HashMap<>();
+        jdbcTemplate.query("SELECT id, schema_name FROM public.auth_application",
+                rs -> {
+                    snapshot.put(rs.getObject(1, UUID.class), rs.getString(2));
+                });
+        apply(snapshot);
+        log.debug("Tenant directory reloaded; {} tenant(s)", snapshot.size());
+    }
+
+    /**
+     * Tells other instances to reload; delivered once the notifying transaction commits
+     */
+    private void announce(UUID tenantId) {
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    jdbcTemplate.query("SELECT pg_notify(?, ?)", rs -> null, CHANNEL, tenantId.toString()));
+        } catch (Exception e) {
+            //Other instances catch up on their next refresh
+            log.error("Unable to announce change of Tenant: {}. Message: {}", tenantId, e.getMessage());
+        }
+    }
+
+    private void listen() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try (Connection connection = listenerConnection()) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                if (!connection.getAutoCommit()) connection.commit();
+                //Load after subscribing, so no change falls between the two
+                reload();
+                listening = true;
+                log.info("Tenant directory loaded; {} tenant(s)", tenants.size());
+
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                long nextRefresh = System.nanoTime() + refreshInterval.toNanos();
+                while (!Thread.currentThread().isInterrupted()) {
+                    long wait = TimeUnit.NANOSECONDS.toMillis(nextRefresh - System.nanoTime());
+                    PGNotification[] notifications = pgConnection.getNotifications((int) Math.max(1, Math.min(wait, 10_000)));
+                    if (notifications != null && notifications.length > 0) {
+                        for (PGNotification notification : notifications) {
+                            forget(notification.getParameter());
+                        }
+                        reload();
+                    }
+                    if (System.nanoTime() - nextRefresh >= 0) {
+                        if (!connection.isValid(5)) throw new SQLException("Listener connection lost");
+                        reload();
+                        nextRefresh = System.nanoTime() + refreshInterval.toNanos();
+                    }
+                }
+            } catch (Exception e) {
+                listening = false;
+                log.error("Tenant directory listener stopped; falling back to lookups. Message: {}", e.getMessage());
+                try {
+                    Thread.sleep(5_000);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+        listening = false;
+    }
+
+    private void forget(String tenantId) {
+        try {
+            unknown.invalidate(UUID.fromString(tenantId));
+        } catch (IllegalArgumentException ignored) {
+            //Not ours; the reload covers it
+        }
+    }
+
+    /**
+     * Held for as long as the listener runs; taken straight from the pool, past any tenant connection budget
+     */
+    private Connection listenerConnection() throws SQLException {
+        if (dataSource.isWrapperFor(HikariDataSource.class)) return dataSource.unwrap(HikariDataSource.class).getConnection();
+        return dataSource.getConnection();
+    }
+}
@@ -0,0 +1,50 @@
+package com.seven.auth.application;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.UUID;
+
+public class TenantJobDTO {
+
+    public enum Type {
+        PROVISION(List.of("queued", "clean", "migrate", "admin", "domains", "application", "directory", "done")),
+        DROP(List.of("queued", "application", "directory", "clean", "done"));
+
+        private final List<String> steps;
+
+        Type(List<String> steps) {
+            this.steps = steps;
+        }
+
+        /**
+         * @return percentage of the job's steps behind it once it has reached step
+         */
+        public int progress(String step) {
+            return Math.max(0, steps.indexOf(step)) * 100 / (steps.size() - 1);
+        }
+    }
+
+    public enum Status {QUEUED, RUNNING, SUCCEEDED, FAILED}
+
+    @Schema(name = "TenantJobResponse")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record Record(
+            UUID id,
+            Type type,
+            Status status,
+            String schemaName,
+            UUID applicationId,
+            String step,
+            int progress,
+            int attempts,
+            int maxAttempts,
+            String error,
+            ZonedDateTime runAfter,
+            ZonedDateTime dateCreated,
+            ZonedDateTime dateUpdated,
+            ZonedDateTime dateCompleted
+    ) { }
+}
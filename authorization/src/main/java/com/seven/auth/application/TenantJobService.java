@@ -0,0 +1,520 @@
+package com.seven.auth.application;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.seven.auth.account.AccountDTO;
+import com.seven.auth.exception.AuthorizationException;
+import com.seven.auth.exception.ClientException;
+import com.seven.auth.exception.ConflictException;
+import com.seven.auth.exception.NotFoundException;
+import com.seven.auth.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Provisions and drops tenant schemas in the background, off the request threads.
+ * <p>
+ * Requests are recorded in public.auth_tenant_job and answered at once with the job. A fixed number of
+ * "workers" per instance claim queued jobs with FOR UPDATE SKIP LOCKED, so instances share the queue and a
+ * burst of onboarding holds at most that many connections and threads on each. Failed jobs are retried with
+ * exponential backoff up to "max-attempts"; every step is safe to repeat. Running jobs are marked alive every
+ * third of "stale-after", however long a step takes, and a job still RUNNING with no sign of life for that long
+ * is taken to be orphaned by a dead instance and claimed again. On shutdown workers stop claiming and get
+ * "shutdown-timeout" to finish; jobs still running then are queued again without counting the attempt. Once
+ * "max-pending" jobs are waiting, new ones are refused with 429.
+ * <p>
+ * A client may send an Idempotency-Key to get the same job back on retry; without one, a request for a schema
+ * that already has an unfinished job of the same type gets that job. A drop that failed for good may be requested
+ * again, even once its application is deleted. Runs are timed as "auth.tenant.job" by
+ * type and outcome.
+ */
+@Service
+public class TenantJobService {
+    private static final Logger log = LoggerFactory.getLogger(TenantJobService.class);
+    //Connections a running job may hold at once, all in the public schema: Flyway's, the provisioning
+    //transaction's and the one recording progress; the instance's heartbeat briefly takes one more
+    public static final int CONNECTIONS_PER_WORKER = 3;
+    private static final String COLUMNS = """
+            id, type, status, schema_name, application_id, step, attempts, max_attempts, error,
+            run_after, date_created, date_updated, date_completed""";
+
+    private final JdbcTemplate jdbcTemplate;
+    //Job state is written in its own transaction, never in the caller's or the provisioning one
+    private final TransactionTemplate transactionTemplate;
+    private final TenantService tenantService;
+    private final ApplicationRepository applicationRepository;
+    private final TenantDirectory tenantDirectory;
+    private final ObjectMapper objectMapper;
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+    private final int workers;
+    private final int maxAttempts;
+    private final int maxPending;
+    private final Duration pollInterval;
+    private final Duration backoff;
+    private final Duration maxBackoff;
+    private final Duration staleAfter;
+    private final Duration retryAfter;
+    private final Duration shutdownTimeout;
+    private final Semaphore wakeUp = new Semaphore(0);
+    //Jobs this instance is running, kept alive by the heartbeat
+    private final Map<UUID, Claim> running = new ConcurrentHashMap<>();
+    private volatile boolean stopping;
+    private ExecutorService pool;
+    private ScheduledExecutorService heartbeat;
+
+    private record Claim(UUID id, TenantJobDTO.Type type, String schemaName, UUID applicationId, String payload,
+                         String requestedBy, int attempts, int maxAttempts) {
+    }
+
+    private static final RowMapper<Claim> CLAIM = (rs, i) -> new Claim(
+            rs.getObject("id", UUID.class),
+            TenantJobDTO.Type.valueOf(rs.getString("type")),
+            rs.getString("schema_name"),
+            rs.getObject("application_id", UUID.class),
+            rs.getString("payload"),
+            rs.getString("requested_by"),
+            rs.getInt("attempts"),
+            rs.getInt("max_attempts"));
+
+    public TenantJobService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager, TenantService tenantService,
+                            ApplicationRepository applicationRepository, TenantDirectory tenantDirectory, ObjectMapper objectMapper,
+                            Environment environment, ObjectProvider<MeterRegistry> meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.tenantService = tenantService;
+        this.applicationRepository = applicationRepository;
+        this.tenantDirectory = tenantDirectory;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.workers = environment.getProperty("authentication.tenant-jobs.workers", Integer.class, 2);
+        this.maxAttempts = environment.getProperty("authentication.tenant-jobs.max-attempts", Integer.class, 3);
+        this.maxPending = environment.getProperty("authentication.tenant-jobs.max-pending", Integer.class, 100);
+        this.pollInterval = environment.getProperty("authentication.tenant-jobs.poll-interval", Duration.class, Duration.ofSeconds(5));
+        this.backoff = environment.getProperty("authentication.tenant-jobs.backoff", Duration.class, Duration.ofSeconds(10));
+        this.maxBackoff = environment.getProperty("authentication.tenant-jobs.max-backoff", Duration.class, Duration.ofMinutes(5));
+        this.staleAfter = environment.getProperty("authentication.tenant-jobs.stale-after", Duration.class, Duration.ofMinutes(15));
+        this.retryAfter = environment.getProperty("authentication.tenant-jobs.retry-after", Duration.class, Duration.ofSeconds(30));
+        this.shutdownTimeout = environment.getProperty("authentication.tenant-jobs.shutdown-timeout", Duration.class, Duration.ofSeconds(30));
+    }
+
+    @PostConstruct
+    public void startWorkers() {
+        if (workers <= 0) return;
+        AtomicInteger count = new AtomicInteger();
+        pool = Executors.newFixedThreadPool(workers, r -> {
+            Thread thread = new Thread(r, "tenant-job-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < workers; i++) pool.execute(this::work);
+        heartbeat = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "tenant-job-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long beat = Math.max(1_000, staleAfter.toMillis() / 3);
+        heartbeat.scheduleWithFixedDelay(this::heartbeat, beat, beat, TimeUnit.MILLISECONDS);
+        log.info("Started {} tenant job worker(s)", workers);
+    }
+
+    @PreDestroy
+    public void stopWorkers() {
+        if (pool == null) return;
+        stopping = true;
+        wakeUp.release(workers);
+        pool.shutdown();
+        try {
+            if (!pool.awaitTermination(shutdownTimeout.toMillis(), TimeUnit.MILLISECONDS)) requeueRunning();
+        } catch (InterruptedException e) {
+            requeueRunning();
+            Thread.currentThread().interrupt();
+        } finally {
+            pool.shutdownNow();
+            heartbeat.shutdownNow();
+        }
+    }
+
+    /**
+     * Hands the jobs still running back to the queue, so that another instance picks them up at once rather than
+     * after "stale-after". The attempt is not held against the job: max_attempts grows with it, while attempts
+     * still moves on so that this worker's late updates are dropped.
+     */
+    private void requeueRunning() {
+        for (Claim claim : running.values()) {
+            try {
+                Integer requeued = transactionTemplate.execute(status -> jdbcTemplate.update("""
+                                UPDATE public.auth_tenant_job SET status = 'QUEUED', max_attempts = max_attempts + 1,
+                                    run_after = CURRENT_TIMESTAMP, date_updated = CURRENT_TIMESTAMP
+                                WHERE id = ? AND attempts = ? AND status = 'RUNNING'""",
+                        claim.id(), claim.attempts()));
+                if (requeued != null && requeued > 0)
+                    log.info("Requeued {} job {} for schema: {} on shutdown", claim.type(), claim.id(), claim.schemaName());
+            } catch (Exception e) {
+                //Claimed again once stale
+                log.error("Unable to requeue Tenant job: {} on shutdown. Message: {}", claim.id(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Marks the jobs running here alive, so that a step outlasting "stale-after" is not claimed by another worker
+     */
+    private void heartbeat() {
+        for (Claim claim : running.values()) {
+            try {
+                Integer alive = transactionTemplate.execute(status -> jdbcTemplate.update("""
+                                UPDATE public.auth_tenant_job SET date_updated = CURRENT_TIMESTAMP
+                                WHERE id = ? AND attempts = ? AND status = 'RUNNING'""",
+                        claim.id(), claim.attempts()));
+                if (alive != null && alive == 0)
+                    log.warn("{} job {} for schema: {} is no longer this worker's", claim.type(), claim.id(), claim.schemaName());
+            } catch (Exception e) {
+                log.error("Unable to mark Tenant job: {} alive. Message: {}", claim.id(), e.getMessage());
+            }
+        }
+    }
+
+    public TenantJobDTO.Record enqueueProvision(ApplicationDTO.Create create, String idempotencyKey) throws AuthorizationException {
+        log.info("Queueing provisioning of app: {}", create.name());
+        try {
+            Optional<TenantJobDTO.Record> replay = byIdempotencyKey(idempotencyKey, TenantJobDTO.Type.PROVISION, create.schemaName(), null);
+            if (replay.isPresent()) return replay.get();
+            return enqueue(TenantJobDTO.Type.PROVISION, create.schemaName(), null, objectMapper.writeValueAsString(create), idempotencyKey);
+        } catch (AuthorizationException e) {
+            log.error("AuthorizationException queueing provisioning of app {}; Message: {}", create.name(), e.getMessage());
+            throw e;
+        } catch (Exception e) {
+            log.error("Error queueing provisioning of app {}; Trace:", create.name(), e);
+            throw new ClientException(e.getMessage());
+        }
+    }
+
+    public TenantJobDTO.Record enqueueDrop(UUID applicationId, String idempotencyKey) throws AuthorizationException {
+        log.info("Queueing drop of Application: {}", applicationId);
+        try {
+            Optional<TenantJobDTO.Record> replay = byIdempotencyKey(idempotencyKey, TenantJobDTO.Type.DROP, null, applicationId);
+            if (replay.isPresent()) return replay.get();
+            Optional<Application> application = applicationRepository.findById(applicationId);
+            if (application.isPresent())
+                return enqueue(TenantJobDTO.Type.DROP, application.get().getSchemaName(), applicationId, null, idempotencyKey);
+            return enqueue(TenantJobDTO.Type.DROP, unfinishedDrop(applicationId), applicationId, null, idempotencyKey);
+        } catch (AuthorizationException e) {
+            log.error("AuthorizationException queueing drop of Application: {}. Reason: {}", applicationId, e.getMessage());
+            throw e;
+        } catch (Exception e) {
+            log.error("Error queueing drop of Application: {}; Trace:", applicationId, e);
+            throw new ClientException(e.getMessage());
+        }
+    }
+
+    /**
+     * The schema of an application whose drop got past deleting it but failed before the schema went, so that
+     * the drop can be asked for again
+     */
+    private String unfinishedDrop(UUID applicationId) throws AuthorizationException {
+        TenantJobDTO.Record drop = find("type = 'DROP' AND application_id = ? AND status <> 'SUCCEEDED' ORDER BY date_created DESC", applicationId)
+                .orElseThrow(() -> {
+                    log.error("Application: {} not found", applicationId);
+                    return new NotFoundException(String.format("Application: %s not found", applicationId));
+                });
+        //The schema name may since have gone to a new application, whose schema must not be dropped
+        if (applicationRepository.findBySchemaName(drop.schemaName()).isPresent())
+            throw new ConflictException("Schema %s now belongs to another application".formatted(drop.schemaName()));
+        log.info("Retrying drop of Application: {} left unfinished by job {}", applicationId, drop.id());
+        return drop.schemaName();
+    }
+
+    public TenantJobDTO.Record get(UUID jobId) throws AuthorizationException {
+        log.info("Retrieving Tenant job: {}", jobId);
+        try {
+            return find("id = ?", jobId).orElseThrow(() -> {
+                log.error("Tenant job: {} not found", jobId);
+                return new NotFoundException(String.format("Tenant job: %s not found", jobId));
+            });
+        } catch (AuthorizationException e) {
+            log.error("AuthorizationException retrieving Tenant job: {}. Reason: {}", jobId, e.getMessage());
+            throw e;
+        } catch (Exception e) {
+            log.error("Exception retrieving Tenant job: {} in service layer. Trace:", jobId, e);
+            throw new ClientException(e.getMessage());
+        }
+    }
+
+    /**
+     * Most recent jobs first, optionally of one status
+     */
+    public List<TenantJobDTO.Record> getAll(TenantJobDTO.Status status, int limit) throws AuthorizationException {
+        log.info("Retrieving Tenant jobs");
+        try {
+            int size = Math.max(1, Math.min(limit, 100));
+            List<TenantJobDTO.Record> jobs = status == null
+                    ? jdbcTemplate.query("SELECT %s FROM public.auth_tenant_job ORDER BY date_created DESC LIMIT ?".formatted(COLUMNS), this::record, size)
+                    : jdbcTemplate.query("SELECT %s FROM public.auth_tenant_job WHERE status = ? ORDER BY date_created DESC LIMIT ?".formatted(COLUMNS), this::record, status.name(), size);
+            log.info("Tenant jobs retrieved successfully");
+            return jobs;
+        } catch (Exception e) {
+            log.error("Exception retrieving Tenant jobs in service layer. Trace:", e);
+            throw new ClientException(e.getMessage());
+        }
+    }
+
+    /**
+     * @param schemaName     checked against the job's unless null
+     * @param applicationId  checked against the job's unless null
+     */
+    private Optional<TenantJobDTO.Record> byIdempotencyKey(String idempotencyKey, TenantJobDTO.Type type, String schemaName, UUID applicationId) throws AuthorizationException {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) return Optional.empty();
+        if (idempotencyKey.length() > 255) throw new ClientException("Idempotency-Key must be at most 255 characters");
+        Optional<TenantJobDTO.Record> job = find("idempotency_key = ?", idempotencyKey);
+        if (job.isPresent() && (job.get().type() != type
+                || (schemaName != null && !schemaName.equals(job.get().schemaName()))
+                || (applicationId != null && !applicationId.equals(job.get().applicationId()))))
+            throw new ConflictException("Idempotency-Key %s was used for a different request".formatted(idempotencyKey));
+        return job;
+    }
+
+    private TenantJobDTO.Record enqueue(TenantJobDTO.Type type, String schemaName, UUID applicationId, String payload, String idempotencyKey) throws Exception {
+        Integer pending = jdbcTemplate.queryForObject("SELECT count(*) FROM public.auth_tenant_job WHERE status IN ('QUEUED', 'RUNNING')", Integer.class);
+        if (pending != null && pending >= maxPending)
+            throw new TooManyRequestsException("%d tenant jobs are pending; try again later".formatted(pending), retryAfter);
+
+        UUID id = UUID.randomUUID();
+        String key = idempotencyKey == null || idempotencyKey.isBlank() ? null : idempotencyKey;
+        String requestedBy = requestedBy();
+        Integer inserted = transactionTemplate.execute(status -> jdbcTemplate.update("""
+                        INSERT INTO public.auth_tenant_job (id, type, status, schema_name, application_id, idempotency_key, payload, requested_by, step, max_attempts)
+                        VALUES (?, ?, 'QUEUED', ?, ?, ?, ?::jsonb, ?::jsonb, 'queued', ?) ON CONFLICT DO NOTHING""",
+                id, type.name(), schemaName, applicationId, key, payload, requestedBy, maxAttempts));
+
+        if (inserted == null || inserted == 0) {
+            //Lost to a concurrent request with the same key, or the schema already has an unfinished job
+            Optional<TenantJobDTO.Record> replay = byIdempotencyKey(key, type, schemaName, applicationId);
+            if (replay.isPresent()) return replay.get();
+            TenantJobDTO.Record active = find("schema_name = ? AND status IN ('QUEUED', 'RUNNING')", schemaName)
+                    .orElseThrow(() -> new ConflictException("Tenant job for schema %s could not be queued".formatted(schemaName)));
+            if (active.type() != type)
+                throw new ConflictException("A %s job for schema %s is already pending".formatted(active.type(), schemaName));
+            log.info("{} job {} for schema: {} already pending", type, active.id(), schemaName);
+            return active;
+        }
+
+        wakeUp.release();
+        log.info("{} job {} queued for schema: {}", type, id, schemaName);
+        return find("id = ?", id).orElseThrow();
+    }
+
+    /**
+     * The requester's account, restored on the worker so that the rows it writes are audited to them
+     */
+    private String requestedBy() throws Exception {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof AccountDTO.Record account)
+            return objectMapper.writeValueAsString(account);
+        return null;
+    }
+
+    private Optional<TenantJobDTO.Record> find(String condition, Object... args) {
+        return jdbcTemplate.query("SELECT %s FROM public.auth_tenant_job WHERE %s LIMIT 1".formatted(COLUMNS, condition), this::record, args)
+                .stream().findFirst();
+    }
+
+    private TenantJobDTO.Record record(ResultSet rs, int i) throws SQLException {
+        TenantJobDTO.Type type = TenantJobDTO.Type.valueOf(rs.getString("type"));
+        String step = rs.getString("step");
+        return new TenantJobDTO.Record(
+                rs.getObject("id", UUID.class),
+                type,
+                TenantJobDTO.Status.valueOf(rs.getString("status")),
+                rs.getString("schema_name"),
+                rs.getObject("application_id", UUID.class),
+                step,
+                type.progress(step),
+                rs.getInt("attempts"),
+                rs.getInt("max_attempts"),
+                rs.getString("error"),
+                dateTime(rs.getObject("run_after", OffsetDateTime.class)),
+                dateTime(rs.getObject("date_created", OffsetDateTime.class)),
+                dateTime(rs.getObject("date_updated", OffsetDateTime.class)),
+                dateTime(rs.getObject("date_completed", OffsetDateTime.class)));
+    }
+
+    private static ZonedDateTime dateTime(OffsetDateTime value) {
+        return value == null ? null : value.toZonedDateTime();
+    }
+
+    private void work() {
+        while (!stopping && !Thread.currentThread().isInterrupted()) {
+            try {
+                Optional<Claim> claim = claim();
+                if (claim.isPresent()) {
+                    run(claim.get());
+                } else {
+                    wakeUp.tryAcquire(pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                log.error("Tenant job worker error: {}", e.getMessage());
+                try {
+                    Thread.sleep(pollInterval.toMillis());
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    private Optional<Claim> claim() {
+        List<Claim> claimed = transactionTemplate.execute(status -> jdbcTemplate.query("""
+                        UPDATE public.auth_tenant_job SET status = 'RUNNING', attempts = attempts + 1, date_updated = CURRENT_TIMESTAMP
+                        WHERE id = (
+                            SELECT id FROM public.auth_tenant_job
+                            WHERE (status = 'QUEUED' AND run_after <= CURRENT_TIMESTAMP)
+                               OR (status = 'RUNNING' AND date_updated < CURRENT_TIMESTAMP - ? * INTERVAL '1 millisecond')
+                            ORDER BY run_after LIMIT 1 FOR UPDATE SKIP LOCKED)
+                        RETURNING id, type, schema_name, application_id, payload, requested_by, attempts, max_attempts""",
+                CLAIM, staleAfter.toMillis()));
+        return claimed == null ? Optional.empty() : claimed.stream().findFirst();
+    }
+
+    private void run(Claim claim) {
+        if (claim.attempts() > claim.maxAttempts()) {
+            //Orphaned by an instance that died on its last attempt
+            finish(claim, TenantJobDTO.Status.FAILED, null, "Abandoned after %d attempt(s)".formatted(claim.maxAttempts()));
+            return;
+        }
+        log.info("Running {} job {} for schema: {}; attempt {} of {}", claim.type(), claim.id(), claim.schemaName(), claim.attempts(), claim.maxAttempts());
+        long start = System.nanoTime();
+        String outcome = "succeeded";
+        running.put(claim.id(), claim);
+        try {
+            authenticate(claim);
+            UUID applicationId = switch (claim.type()) {
+                case PROVISION -> provision(claim);
+                case DROP -> drop(claim);
+            };
+            finish(claim, TenantJobDTO.Status.SUCCEEDED, applicationId, null);
+            log.info("{} job {} for schema: {} succeeded", claim.type(), claim.id(), claim.schemaName());
+        } catch (Exception e) {
+            outcome = retryOrFail(claim, e);
+        } finally {
+            running.remove(claim.id());
+            SecurityContextHolder.clearContext();
+            MeterRegistry registry = meterRegistry.getIfAvailable();
+            if (registry != null)
+                Timer.builder("auth.tenant.job").tag("type", claim.type().name()).tag("outcome", outcome).register(registry)
+                        .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void authenticate(Claim claim) throws Exception {
+        if (claim.requestedBy() == null) return;
+        AccountDTO.Record account = objectMapper.readValue(claim.requestedBy(), AccountDTO.Record.class);
+        SecurityContextHolder.getContext().setAuthentication(UsernamePasswordAuthenticationToken.authenticated(account, null, List.of()));
+    }
+
+    private UUID provision(Claim claim) throws Exception {
+        ApplicationDTO.Create create = objectMapper.readValue(claim.payload(), ApplicationDTO.Create.class);
+        ApplicationDTO.Record record = tenantService.register(create, step -> progress(claim, step));
+        progress(claim, "directory");
+        tenantDirectory.added(record.id(), create.schemaName());
+        return record.id();
+    }
+
+    /**
+     * Stops routing to the tenant before its schema goes, so no request sees it half dropped. The job row keeps
+     * the application id and schema, so a drop that fails after the application is deleted can be requested
+     * again for the same id.
+     */
+    private UUID drop(Claim claim) {
+        progress(claim, "application");
+        if (claim.applicationId() != null && applicationRepository.existsById(claim.applicationId()))
+            applicationRepository.deleteById(claim.applicationId());
+        progress(claim, "directory");
+        if (claim.applicationId() != null) tenantDirectory.removed(claim.applicationId());
+        progress(claim, "clean");
+        tenantService.dropSchema(claim.schemaName());
+        return claim.applicationId();
+    }
+
+    /**
+     * Also marks the job alive; updates from a worker whose claim was since taken over are dropped
+     */
+    private void progress(Claim claim, String step) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.update("""
+                            UPDATE public.auth_tenant_job SET step = ?, date_updated = CURRENT_TIMESTAMP
+                            WHERE id = ? AND attempts = ? AND status = 'RUNNING'""",
+                    step, claim.id(), claim.attempts()));
+        } catch (Exception e) {
+            log.error("Unable to record step {} of Tenant job: {}. Message: {}", step, claim.id(), e.getMessage());
+        }
+    }
+
+    private String retryOrFail(Claim claim, Exception e) {
+        String error = e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage();
+        if (claim.attempts() >= claim.maxAttempts()) {
+            log.error("{} job {} for schema: {} failed after {} attempt(s). Trace:", claim.type(), claim.id(), claim.schemaName(), claim.attempts(), e);
+            finish(claim, TenantJobDTO.Status.FAILED, null, error);
+            return "failed";
+        }
+        long delay = Math.min(maxBackoff.toMillis(), backoff.toMillis() << Math.min(claim.attempts() - 1, 20));
+        log.error("{} job {} for schema: {} failed on attempt {}; retrying in {}ms. Message: {}", claim.type(), claim.id(), claim.schemaName(), claim.attempts(), delay, error);
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.update("""
+                            UPDATE public.auth_tenant_job SET status = 'QUEUED', error = ?, date_updated = CURRENT_TIMESTAMP,
+                                run_after = CURRENT_TIMESTAMP + ? * INTERVAL '1 millisecond'
+                            WHERE id = ? AND attempts = ? AND status = 'RUNNING'""",
+                    error, delay, claim.id(), claim.attempts()));
+        } catch (Exception update) {
+            //Claimed again once stale
+            log.error("Unable to requeue Tenant job: {}. Message: {}", claim.id(), update.getMessage());
+        }
+        return "retried";
+    }
+
+    private void finish(Claim claim, TenantJobDTO.Status status, UUID applicationId, String error) {
+        try {
+            transactionTemplate.executeWithoutResult(tx -> jdbcTemplate.update("""
+                            UPDATE public.auth_tenant_job SET status = ?, step = CASE WHEN ? THEN 'done' ELSE step END,
+                                application_id = COALESCE(?, application_id), error = ?,
+                                date_updated = CURRENT_TIMESTAMP, date_completed = CURRENT_TIMESTAMP
+                            WHERE id = ? AND attempts = ? AND status = 'RUNNING'""",
+                    status.name(), status == TenantJobDTO.Status.SUCCEEDED, applicationId, error, claim.id(), claim.attempts()));
+        } catch (Exception e) {
+            log.error("Unable to record {} of Tenant job: {}. Message: {}", status, claim.id(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.seven.auth.application;
+
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Applies pending tenant migrations to existing tenant schemas at startup, ahead of any other runner
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class TenantMigrationRunner implements ApplicationRunner {
+    private final TenantService tenantService;
+
+    public TenantMigrationRunner(TenantService tenantService) {
+        this.tenantService = tenantService;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        tenantService.migrateTenantSchemas();
+    }
+}
@@ -3,11 +3,15 @@ package com.seven.auth.application;
 import com.seven.auth.account.Account;
 import com.seven.auth.account.AccountDTO;
 import com.seven.auth.account.AccountRepository;
+import com.seven.auth.config.schema.SchemaTenantConnectionProvider;
+import com.seven.auth.config.schema.TenantPartitionedDataSource;
 import com.seven.auth.config.threadlocal.TenantContext;
 import com.seven.auth.domain.Domain;
 import com.seven.auth.domain.DomainRepository;
 import com.seven.auth.exception.AuthorizationException;
 import com.seven.auth.exception.ConflictException;
+import com.seven.auth.exception.ServiceUnavailableException;
+import com.seven.auth.password.PasswordHashingService;
 import com.seven.auth.util.Constants;
 import jakarta.persistence.EntityManager;
 import org.flywaydb.core.Flyway;
@@ -16,7 +20,6 @@ import org.flywaydb.core.api.configuration.ClassicConfiguration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.auditing.AuditingHandler;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -28,8 +31,10 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.sql.SQLException;
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 /**
  * The TenantService performs the singular task of registering an app and
@@ -42,24 +47,29 @@ public class TenantService {
     private final ApplicationRepository applicationRepository;
     private final AccountRepository accountRepository;
     private final DomainRepository domainRepository;
-    private final BCryptPasswordEncoder bCryptPasswordEncoder;
+    private final PasswordHashingService passwordHashingService;
     private final DataSource dataSource;
     private final EntityManager em;
     private final AuditingHandler auditingHandler;
+    private final SchemaTenantConnectionProvider connectionProvider;
 
-    public TenantService(ApplicationRepository applicationRepository, AccountRepository accountRepository, DomainRepository domainRepository, BCryptPasswordEncoder bCryptPasswordEncoder,
-                         DataSource dataSource, EntityManager em, AuditingHandler auditingHandler) {
+    public TenantService(ApplicationRepository applicationRepository, AccountRepository accountRepository, DomainRepository domainRepository, PasswordHashingService passwordHashingService,
+                         DataSource dataSource, EntityManager em, AuditingHandler auditingHandler, SchemaTenantConnectionProvider connectionProvider) {
         this.applicationRepository = applicationRepository;
         this.accountRepository = accountRepository;
         this.domainRepository = domainRepository;
-        this.bCryptPasswordEncoder = bCryptPasswordEncoder;
+        this.passwordHashingService = passwordHashingService;
         this.dataSource = dataSource;
         this.em = em;
         this.auditingHandler = auditingHandler;
+        this.connectionProvider = connectionProvider;
     }
 
+    /**
+     * @param progress told the name of each provisioning step as it starts
+     */
     @Transactional
-    public ApplicationDTO.Record register(ApplicationDTO.Create appRequest) throws AuthorizationException {
+    public ApplicationDTO.Record register(ApplicationDTO.Create appRequest, Consumer<String> progress) throws AuthorizationException {
         try {
             String schemaName = appRequest.schemaName();
             log.info("Registering new app: {}", appRequest.name());
@@ -67,7 +77,7 @@ public class TenantService {
             //Check if app by this name already exists
             Application application = applicationRepository.findBySchemaName(schemaName).orElse(null);
             if (application == null) {
-                application = provisionSchema(appRequest);
+                application = provisionSchema(appRequest, progress);
             }
 
             ApplicationDTO.Record appRecord = ApplicationDTO.Record.from(application);
@@ -83,7 +93,7 @@ public class TenantService {
         }
     }
 
-    private Application provisionSchema(ApplicationDTO.Create appRequest) throws AuthorizationException {
+    private Application provisionSchema(ApplicationDTO.Create appRequest, Consumer<String> progress) throws AuthorizationException {
         try {
             log.info("Provisioning new schema for app: {}", appRequest.name());
 
@@ -91,45 +101,51 @@ public class TenantService {
             Flyway tenantFlyway = buildTenantFlyway(dataSource, appRequest);
 
             //Clean up any incompletely provisioned schemas with the same name from the db
+            progress.accept("clean");
             tenantFlyway.clean();
 
             //Create and migrate new schema
+            progress.accept("migrate");
             tenantFlyway.migrate();
             log.info("Schema: {} created successfully in DB", appRequest.schemaName());
 
             //Switch to newly created schema
-            em.createNativeQuery("SET SCHEMA '%s'".formatted(appRequest.schemaName())).executeUpdate();
+            connectionProvider.setSchema(em, appRequest.schemaName());
 
             //Set Admin email and password
+            progress.accept("admin");
             Account schemaAdmin = setAdminCredentials(appRequest);
 
             //insert domains and permissions
+            progress.accept("domains");
             insertDomainsAndPermissions(appRequest, schemaAdmin);
 
             //Switch to authorization schema
-            em.createNativeQuery("SET SCHEMA '%s'".formatted(Constants.PUBLIC_SCHEMA)).executeUpdate();
+            connectionProvider.setSchema(em, Constants.PUBLIC_SCHEMA);
 
             //Insert application record
+            progress.accept("application");
             Application application = Application.from(appRequest);
             application = applicationRepository.save(application);
 
             log.info("Provisioned new schema: {}", appRequest.name());
             return application;
+        } catch (ServiceUnavailableException e) {
+            log.error("Unable to provision schema. Message: {}", e.getMessage());
+            throw e;
         } catch (Exception e) {
             log.error("Error trying to provision schema. Trace:", e);
             throw new ConflictException(String.format("Error provisioning schema. Message: %s", e.getMessage()));
-        } finally {
-            em.createNativeQuery("SET SCHEMA '%s'".formatted(Constants.PUBLIC_SCHEMA)).executeUpdate();
         }
     }
 
-    private Account setAdminCredentials(ApplicationDTO.Create appRequest) throws ConflictException, IOException {
+    private Account setAdminCredentials(ApplicationDTO.Create appRequest) throws ConflictException, ServiceUnavailableException, IOException {
         log.info("Setting Admin credentials");
         String adminEmail = appRequest.schemaName() + "@seven.com";
         String adminPassword = UUID.randomUUID().toString();
 
         Account admin = accountRepository.findByEmail(adminEmail).orElseThrow(() -> new ConflictException("Elevated user not found please contact administrator"));
-        admin.setPassword(bCryptPasswordEncoder.encode(adminPassword));
+        admin.setPassword(passwordHashingService.hash(adminPassword));
 
         admin = accountRepository.save(admin);
 
@@ -164,19 +180,55 @@ public class TenantService {
      * @throws IOException
      */
     public void  dropSchema(Application app) {
+        dropSchema(app.getSchemaName());
+    }
+
+    public void dropSchema(String schemaName) {
         try {
-            log.info("Dropping schema: {} in DB", app.getName());
+            log.info("Dropping schema: {} in DB", schemaName);
 
-            Flyway tenantFlyway = buildTenantFlyway(dataSource, app);
+            Flyway tenantFlyway = buildTenantFlyway(dataSource, schemaName);
             tenantFlyway.clean();
+            forgetPartition(schemaName);
 
-            log.info("Schema: {} (if exists) dropped successfully", app.getName());
+            log.info("Schema: {} (if exists) dropped successfully", schemaName);
         } catch (Exception e) {
-            log.error("Error dropping schema {}. Trace:", app.getName(), e);
+            log.error("Error dropping schema {}. Trace:", schemaName, e);
             throw e;
         }
     }
 
+    /**
+     * Releases the dropped tenant's connection budget and meters, when the pool is partitioned
+     */
+    private void forgetPartition(String schemaName) {
+        try {
+            if (dataSource.isWrapperFor(TenantPartitionedDataSource.class))
+                dataSource.unwrap(TenantPartitionedDataSource.class).forget(schemaName);
+        } catch (SQLException e) {
+            log.warn("Unable to forget connection partition of Tenant: {}. Message: {}", schemaName, e.getMessage());
+        }
+    }
+
+    /**
+     * Brings every registered tenant schema up to the latest tenant migration.
+     * New tenants are migrated when provisioned; this covers migrations added after a tenant was created.
+     */
+    public void migrateTenantSchemas() {
+        List<Application> applications = applicationRepository.findAll().stream()
+                .filter(app -> !Constants.PUBLIC_SCHEMA.equals(app.getSchemaName()))
+                .toList();
+        log.info("Migrating {} tenant schema(s)", applications.size());
+        for (Application app : applications) {
+            try {
+                int applied = buildTenantFlyway(dataSource, app).migrate().migrationsExecuted;
+                log.info("Schema: {} migrated; {} migration(s) applied", app.getSchemaName(), applied);
+            } catch (Exception e) {
+                log.error("Error migrating schema {}. Trace:", app.getSchemaName(), e);
+            }
+        }
+    }
+
     public Flyway buildTenantFlyway(DataSource dataSource, Application app) {
         return buildTenantFlyway(dataSource, app.getSchemaName());
     }
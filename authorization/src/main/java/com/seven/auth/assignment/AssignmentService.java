@@ -5,6 +5,7 @@ import com.seven.auth.exception.AuthorizationException;
 import com.seven.auth.exception.ClientException;
 import com.seven.auth.exception.ConflictException;
 import com.seven.auth.exception.NotFoundException;
+import com.seven.auth.permission.EffectivePermissionCache;
 import com.seven.auth.util.Pagination;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -22,9 +23,11 @@ public class AssignmentService{
     private final Logger log = LoggerFactory.getLogger(getClass());
 
     private final AssignmentRepository assignmentRepository;
+    private final EffectivePermissionCache effectivePermissionCache;
 
-    public AssignmentService(AssignmentRepository assignmentRepository) {
+    public AssignmentService(AssignmentRepository assignmentRepository, EffectivePermissionCache effectivePermissionCache) {
         this.assignmentRepository = assignmentRepository;
+        this.effectivePermissionCache = effectivePermissionCache;
     }
 
     public Page<AssignmentDTO.Record> getAll(Pagination pagination, AssignmentDTO.Filter filter) throws AuthorizationException {
@@ -54,6 +57,8 @@ public class AssignmentService{
         log.info("Deleting Assignment: {} for Tenant: {}", id, tenant);
         try {
             assignmentRepository.deleteById(id);
+            //Only the id is known here, not the account it belonged to
+            effectivePermissionCache.invalidateTenant(tenant);
             log.info("Assignment deleted successfully");
         } catch (EmptyResultDataAccessException e) {
             log.error("Assignment {} not found.", id);
@@ -77,6 +82,7 @@ public class AssignmentService{
 
             Assignment assignmentEntity = Assignment.from(request);
             assignmentEntity = assignmentRepository.save(assignmentEntity);
+            effectivePermissionCache.invalidate(tenant, request.accountEmail());
             AssignmentDTO.Record response = AssignmentDTO.Record.from(assignmentEntity);
 
             log.info("Assignment {} registered successfully", assignmentEntity.getId());
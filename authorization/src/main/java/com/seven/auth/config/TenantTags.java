@@ -0,0 +1,32 @@
+package com.seven.auth.config;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bounds the "tenant" tag of per-tenant metrics: only the first "authentication.metrics.max-tenant-tags"
+ * tenants seen get their own tag, later ones share {@link #OTHER}, so the number of series stays bounded
+ * however many tenants exist. A forgotten tenant, e.g. one that was dropped, frees its slot.
+ */
+public class TenantTags {
+    public static final String OTHER = "other";
+    public static final String NONE = "none";
+
+    private final int maxTenantTags;
+    private final Set<String> tenantTags = ConcurrentHashMap.newKeySet();
+
+    public TenantTags(int maxTenantTags) {
+        this.maxTenantTags = maxTenantTags;
+    }
+
+    public String tag(String tenant) {
+        if (tenant == null) return NONE;
+        if (tenantTags.contains(tenant)) return tenant;
+        if (tenantTags.size() < maxTenantTags && tenantTags.add(tenant)) return tenant;
+        return tenantTags.contains(tenant) ? tenant : OTHER;
+    }
+
+    public void forget(String tenant) {
+        if (tenant != null) tenantTags.remove(tenant);
+    }
+}
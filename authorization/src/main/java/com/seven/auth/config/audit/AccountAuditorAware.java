@@ -3,6 +3,7 @@ package com.seven.auth.config.audit;
 import com.seven.auth.account.Account;
 import com.seven.auth.account.AccountDTO;
 import org.springframework.data.domain.AuditorAware;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 
@@ -13,7 +14,9 @@ public class AccountAuditorAware implements AuditorAware<Account> {
 
     @Override
     public Optional<Account> getCurrentAuditor() {
-        AccountDTO.Record record = (AccountDTO.Record) (SecurityContextHolder.getContext().getAuthentication().getPrincipal());
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        //Background work started without a requester is not attributed to anyone
+        if (authentication == null || !(authentication.getPrincipal() instanceof AccountDTO.Record record)) return Optional.empty();
         return Optional.of(Account.from(record));
     }
 }
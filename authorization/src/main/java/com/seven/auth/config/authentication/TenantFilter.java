@@ -1,6 +1,7 @@
 package com.seven.auth.config.authentication;
 
-import com.seven.auth.application.ApplicationRepository;
+import com.seven.auth.application.TenantDirectory;
+import com.seven.auth.config.threadlocal.RequestTimings;
 import com.seven.auth.config.threadlocal.TenantContext;
 import com.seven.auth.exception.ConflictException;
 import com.seven.auth.util.Constants;
@@ -23,43 +24,52 @@ import java.util.UUID;
 public class TenantFilter extends OncePerRequestFilter {
     private final Logger log = LoggerFactory.getLogger(getClass());
     //These URIs do not require a tenant id
-    private final List<String> whitelist = List.of("/swagger", "/swagger-ui", "/v3/api-docs", Constants.PATH_PREFIX + "/applications");
-    private final ApplicationRepository applicationRepository;
+    private final List<String> whitelist = List.of("/swagger", "/swagger-ui", "/v3/api-docs", "/.well-known", "/auth/introspect", "/actuator/health", "/actuator/prometheus", Constants.PATH_PREFIX + "/applications");
+    private final TenantDirectory tenantDirectory;
 
-    public TenantFilter(ApplicationRepository applicationRepository) {
-        this.applicationRepository = applicationRepository;
+    public TenantFilter(TenantDirectory tenantDirectory) {
+        this.tenantDirectory = tenantDirectory;
     }
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        log.info("---------------------------------------AUTHORIZATION---------------------------------------------------------------");
+        String tenant;
+        try (RequestTimings.Phase ignored = RequestTimings.phase("tenant")) {
+            tenant = resolveTenant(request, (String) request.getAttribute("tenant"));
+        }
+        RequestTimings.tenant(tenant);
+        //Bound for the rest of the chain only; the thread's previous binding is restored afterwards
         try {
-            log.info("---------------------------------------AUTHORIZATION---------------------------------------------------------------");
-            setTenant(request, (String) request.getAttribute("tenant"));
-            filterChain.doFilter(request, response);
-        } finally {
-            TenantContext.clearTenant();
+            TenantContext.callWith(tenant, () -> {
+                filterChain.doFilter(request, response);
+                return null;
+            });
+        } catch (ServletException | IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new ServletException(e);
         }
     }
 
-    private void setTenant(HttpServletRequest request, String tenant) {
+    private String resolveTenant(HttpServletRequest request, String tenant) {
         try {
             String path = request.getRequestURI();
             //Paths not visited by users
             if (isPathWhitelisted(path)) {
                 log.info("WHITELISTED: {}", path);
-                TenantContext.setCurrentTenant(Constants.PUBLIC_SCHEMA);
+                tenant = Constants.PUBLIC_SCHEMA;
             }
 
             //Authentication paths
             else if (isSuperuserAuthenticationPath(path)) {
                 log.info("Superuser authentication path");
-                TenantContext.setCurrentTenant(Constants.PUBLIC_SCHEMA);
+                tenant = Constants.PUBLIC_SCHEMA;
             } else if (isRegularAuthenticationPath(path)) {
                 log.info("Authentication path");
                 String tenantId = request.getHeader("X-Tenant-Id");
                 assert tenantId != null : "Tenant not provided";
-                tenant = applicationRepository.findById(UUID.fromString(tenantId)).orElseThrow(() -> new ConflictException("Tenant with id %s not found".formatted(tenantId))).getSchemaName();
-                TenantContext.setCurrentTenant(tenant);
+                tenant = tenantDirectory.schemaOf(UUID.fromString(tenantId)).orElseThrow(() -> new ConflictException("Tenant with id %s not found".formatted(tenantId)));
             }
 
             //Requests performed by superusers
@@ -68,24 +78,22 @@ public class TenantFilter extends OncePerRequestFilter {
                 String tenantId = request.getHeader("X-Tenant-Id");
                 if (isRequestToCreateRegularAccount(request, path)) { //
                     assert tenantId != null : "Tenant not provided";
-                    tenant = applicationRepository.findById(UUID.fromString(tenantId)).orElseThrow(() -> new ConflictException("Tenant with id %s not found".formatted(tenantId))).getSchemaName();
+                    tenant = tenantDirectory.schemaOf(UUID.fromString(tenantId)).orElseThrow(() -> new ConflictException("Tenant with id %s not found".formatted(tenantId)));
                 }
 
                 //If it is any other type of request performed by superusers
                 else if (tenantId != null) {
-                    tenant = applicationRepository.findById(UUID.fromString(tenantId)).orElseThrow(() -> new ConflictException("Tenant with id %s not found".formatted(tenantId))).getSchemaName();
+                    tenant = tenantDirectory.schemaOf(UUID.fromString(tenantId)).orElseThrow(() -> new ConflictException("Tenant with id %s not found".formatted(tenantId)));
                 }
-
-                TenantContext.setCurrentTenant(tenant);
             }
 
             //Requests performed by other users
             else {
                 log.info("Current principal is a regular user");
                 assert tenant != null : "Tenant not provided";
-                TenantContext.setCurrentTenant(tenant);
             }
-            log.info("Routed to tenant: {}", TenantContext.getCurrentTenant());
+            log.info("Routed to tenant: {}", tenant);
+            return tenant;
         } catch (Exception e) {
             String msg = "Error routing to tenant %s : %s".formatted(tenant, e.getMessage());
             log.error(msg);
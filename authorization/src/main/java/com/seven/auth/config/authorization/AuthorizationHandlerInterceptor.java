@@ -3,6 +3,7 @@ package com.seven.auth.config.authorization;
 import com.seven.auth.exception.AuthorizationException;
 import com.seven.auth.exception.ForbiddenException;
 import com.seven.auth.permission.PEnum;
+import com.seven.auth.util.GrantedPermissions;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
@@ -14,7 +15,6 @@ import org.springframework.web.servlet.resource.ResourceHttpRequestHandler;
 
 import java.lang.reflect.Method;
 import java.util.Arrays;
-import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -25,7 +25,7 @@ public class AuthorizationHandlerInterceptor implements HandlerInterceptor {
     @Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws AuthorizationException{
         try {
-            List<String> tokenPermissions = ((List<String>) request.getAttribute("permissions"));
+            GrantedPermissions tokenPermissions = (GrantedPermissions) request.getAttribute("permissions");
             log.info("User permissions: {}", tokenPermissions);
 
             if (handler instanceof HandlerMethod) {
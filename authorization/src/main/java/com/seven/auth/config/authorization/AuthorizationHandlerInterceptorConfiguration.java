@@ -15,6 +15,6 @@ public class AuthorizationHandlerInterceptorConfiguration implements WebMvcConfi
     @Override
     public void addInterceptors(InterceptorRegistry registry) {
         registry.addInterceptor(authorizationHandlerInterceptor)
-                .excludePathPatterns("/su/**", "/auth/**", "/swagger/**", "/swagger-ui/**", "/v3/api-docs/**");
+                .excludePathPatterns("/su/**", "/auth/**", "/swagger/**", "/swagger-ui/**", "/v3/api-docs/**", "/.well-known/**");
     }
 }
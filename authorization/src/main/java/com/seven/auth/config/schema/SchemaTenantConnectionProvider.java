@@ -1,22 +1,56 @@
 package com.seven.auth.config.schema;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.seven.auth.config.threadlocal.TenantContext;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
 import org.hibernate.dialect.Dialect;
 import org.hibernate.engine.jdbc.connections.spi.DatabaseConnectionInfo;
 import org.hibernate.engine.jdbc.connections.spi.MultiTenantConnectionProvider;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Component;
 
 import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Locale;
+import java.util.regex.Pattern;
 
+/**
+ * Hands Hibernate pooled connections switched to the tenant's schema.
+ * <p>
+ * The schema last set on each physical connection is remembered, so a checkout only runs SET SCHEMA when the
+ * connection was last used for another tenant, and release leaves the schema as it is. Every query outside
+ * Hibernate names its schema explicitly, so no caller depends on a connection coming back on public. With
+ * auto-commit off the switch is committed in the same round trip; otherwise a rollback of the session's
+ * transaction would silently undo it. Code that needs another schema on a session's connection goes through
+ * {@link #setSchema(EntityManager, String)}, which stops tracking that connection, so its next checkout sets
+ * the tenant's schema again whether or not the caller switched back.
+ * <p>
+ * The database vendor is read once, from the first connection. Switches and skips are counted as
+ * "auth.tenant.schema.switch" with outcome "set" or "skipped".
+ */
 @Component
 public class SchemaTenantConnectionProvider implements MultiTenantConnectionProvider<String> {
+    private static final Pattern SCHEMA_NAME = Pattern.compile("^\\w{1,63}$");
 
-    @Autowired
-    private DataSource dataSource;
+    private final DataSource dataSource;
+    //Weak identity keys: connections closed by the pool drop out once collected
+    private final Cache<Connection, String> schemas = Caffeine.newBuilder().weakKeys().build();
+    private final Counter switched;
+    private final Counter skipped;
+    private volatile String dbVendor;
+
+    public SchemaTenantConnectionProvider(DataSource dataSource, ObjectProvider<MeterRegistry> meterRegistry) {
+        this.dataSource = dataSource;
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        this.switched = registry == null ? null : Counter.builder("auth.tenant.schema.switch").tag("outcome", "set").register(registry);
+        this.skipped = registry == null ? null : Counter.builder("auth.tenant.schema.switch").tag("outcome", "skipped").register(registry);
+    }
 
     @Override
     public Connection getAnyConnection() throws SQLException {
@@ -36,14 +70,18 @@ public class SchemaTenantConnectionProvider implements MultiTenantConnectionProv
     @Override
     public Connection getConnection(String schemaName) throws SQLException {
         final Connection connection = dataSource.getConnection();
-        connection.createStatement().execute("SET SCHEMA '%s';".formatted(schemaName));
-        TenantContext.setCurrentDbVendor(connection.getMetaData().getDatabaseProductName().toLowerCase());
+        try {
+            switchSchema(connection, schemaName);
+            TenantContext.setCurrentDbVendor(dbVendor(connection));
+        } catch (SQLException | RuntimeException e) {
+            connection.close();
+            throw e;
+        }
         return connection;
     }
 
     @Override
     public void releaseConnection(String schemaName, Connection connection) throws SQLException {
-        connection.createStatement().execute("SET SCHEMA 'public';");
         TenantContext.clearCurrentDbVendor();
         connection.close();
     }
@@ -65,4 +103,52 @@ public class SchemaTenantConnectionProvider implements MultiTenantConnectionProv
         }
         return null;
     }
+
+    /**
+     * Switches the schema of the session's connection in place, for work that spans schemas within one
+     * transaction. Pending changes are flushed first, so they land in the schema they were made in.
+     */
+    public void setSchema(EntityManager em, String schemaName) {
+        if (!SCHEMA_NAME.matcher(schemaName).matches())
+            throw new IllegalArgumentException("Invalid schema name %s".formatted(schemaName));
+
+        em.flush();
+        em.unwrap(Session.class).doWork(connection -> {
+            schemas.invalidate(connection.unwrap(Connection.class));
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SET SCHEMA '%s'".formatted(schemaName));
+            }
+        });
+    }
+
+    private void switchSchema(Connection connection, String schemaName) throws SQLException {
+        if (!SCHEMA_NAME.matcher(schemaName).matches())
+            throw new SQLException("Invalid schema name %s".formatted(schemaName));
+
+        //The pool hands out a new proxy on every checkout; the schema belongs to the connection underneath
+        Connection physical = connection.unwrap(Connection.class);
+        if (schemaName.equals(schemas.getIfPresent(physical))) {
+            if (skipped != null) skipped.increment();
+            return;
+        }
+
+        schemas.invalidate(physical);
+        String sql = connection.getAutoCommit()
+                ? "SET SCHEMA '%s'".formatted(schemaName)
+                : "SET SCHEMA '%s'; COMMIT".formatted(schemaName);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+        schemas.put(physical, schemaName);
+        if (switched != null) switched.increment();
+    }
+
+    private String dbVendor(Connection connection) throws SQLException {
+        String vendor = dbVendor;
+        if (vendor == null) {
+            vendor = connection.getMetaData().getDatabaseProductName().toLowerCase(Locale.ROOT);
+            dbVendor = vendor;
+        }
+        return vendor;
+    }
 }
@@ -0,0 +1,287 @@
+package com.seven.auth.config.schema;
+
+import com.seven.auth.config.TenantTags;
+import com.seven.auth.config.threadlocal.TenantContext;
+import com.seven.auth.util.Constants;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shares the connection pool between tenants by budget, so that one busy tenant cannot hold every connection.
+ * <p>
+ * Each tenant belongs to a class with a minimum and a maximum of connections, and never holds more than its
+ * maximum. The minimum of every tenant mapped by name, the public schema included, is set aside from the pool
+ * for that tenant alone. Unmapped tenants share "reserved" connections for their minimums, first come first
+ * served, so their minimum is only guaranteed while the reserve lasts. Whatever remains is the burst budget,
+ * which every connection past a tenant's minimum (or past an exhausted reserve) takes a permit from. Pools too
+ * small to set the mapped minimums and the reserve aside are rejected at startup. A tenant that cannot get its
+ * permits within "acquire-timeout" gets an SQLTransientConnectionException, as from an exhausted pool.
+ * <p>
+ * The tenant is the current {@link TenantContext} tenant, so Hibernate sessions and schema-qualified
+ * JdbcTemplate queries are budgeted alike. Per tenant, the wait for permits is published as
+ * "auth.tenant.pool.wait", connections held as "auth.tenant.pool.active" and timeouts as
+ * "auth.tenant.pool.rejected", with the tenant tag capped as by {@link TenantTags}. A dropped tenant should be
+ * {@link #forget forgotten}, which releases its partition and meters.
+ */
+public class TenantPartitionedDataSource extends DelegatingDataSource {
+    private static final Logger log = LoggerFactory.getLogger(TenantPartitionedDataSource.class);
+    public static final String DEFAULT_CLASS = "default";
+
+    public record Limits(int min, int max) {
+        public Limits {
+            if (min < 0 || max < 1 || min > max)
+                throw new IllegalArgumentException("Tenant pool limits need 0 <= min <= max and max >= 1; got min %d, max %d".formatted(min, max));
+        }
+    }
+
+    private final Map<String, Limits> classes;
+    private final Map<String, String> tenantClasses;
+    private final Duration acquireTimeout;
+    private final Semaphore reserve;
+    private final Semaphore burst;
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+    private final TenantTags tenantTags;
+    private final ConcurrentMap<String, Partition> partitions = new ConcurrentHashMap<>();
+    //Connections held by the tenants sharing each tag, "other" included
+    private final ConcurrentMap<String, AtomicInteger> activeByTag = new ConcurrentHashMap<>();
+
+    public TenantPartitionedDataSource(HikariDataSource targetDataSource, Map<String, Limits> classes, Map<String, String> tenantClasses,
+                                       int reserved, Duration acquireTimeout, TenantTags tenantTags, ObjectProvider<MeterRegistry> meterRegistry) {
+        super(targetDataSource);
+        this.tenantTags = tenantTags;
+        this.classes = Map.copyOf(classes);
+        this.tenantClasses = Map.copyOf(tenantClasses);
+        this.acquireTimeout = acquireTimeout;
+        this.meterRegistry = meterRegistry;
+        if (!this.classes.containsKey(DEFAULT_CLASS))
+            throw new IllegalArgumentException("Tenant pool class \"%s\" is not configured".formatted(DEFAULT_CLASS));
+        for (Map.Entry<String, String> tenant : this.tenantClasses.entrySet()) {
+            if (!this.classes.containsKey(tenant.getValue()))
+                throw new IllegalArgumentException("Tenant %s is mapped to unknown pool class \"%s\"".formatted(tenant.getKey(), tenant.getValue()));
+        }
+        int dedicated = dedicatedMinimum();
+        int burstSize = targetDataSource.getMaximumPoolSize() - reserved - dedicated;
+        if (burstSize < 0)
+            throw new IllegalArgumentException("Pool of %d connection(s) cannot set aside %d for mapped tenants' minimums and %d reserved"
+                    .formatted(targetDataSource.getMaximumPoolSize(), dedicated, reserved));
+        this.reserve = new Semaphore(Math.max(0, reserved), true);
+        this.burst = new Semaphore(burstSize, true);
+        log.info("Partitioned connection pool: {} burst connection(s), {} reserved, {} set aside for mapped tenants, classes {}",
+                burstSize, reserved, dedicated, this.classes);
+    }
+
+    /**
+     * Minimums set aside for tenants mapped by name, the public schema included whether mapped or not
+     */
+    private int dedicatedMinimum() {
+        int sum = tenantClasses.containsKey(Constants.PUBLIC_SCHEMA) ? 0 : classes.get(DEFAULT_CLASS).min();
+        for (String tenantClass : tenantClasses.values()) sum += classes.get(tenantClass).min();
+        return sum;
+    }
+
+    /**
+     * Drops the tenant's partition and its own meters; connections it still holds return their permits as usual
+     */
+    public void forget(String tenant) {
+        Partition partition = partitions.remove(tenant);
+        if (partition == null) return;
+        if (!TenantTags.OTHER.equals(partition.tag)) {
+            MeterRegistry registry = meterRegistry.getIfAvailable();
+            if (registry != null) {
+                if (partition.wait != null) registry.remove(partition.wait);
+                if (partition.rejected != null) registry.remove(partition.rejected);
+                if (partition.gauge != null) registry.remove(partition.gauge);
+            }
+            activeByTag.remove(partition.tag);
+            tenantTags.forget(tenant);
+        }
+        log.info("Forgot connection partition of Tenant: {}", tenant);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Lease lease = acquire(TenantContext.getCurrentTenant());
+        try {
+            return lease.wrap(super.getConnection());
+        } catch (SQLException | RuntimeException e) {
+            lease.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        Lease lease = acquire(TenantContext.getCurrentTenant());
+        try {
+            return lease.wrap(super.getConnection(username, password));
+        } catch (SQLException | RuntimeException e) {
+            lease.release();
+            throw e;
+        }
+    }
+
+    private Lease acquire(String tenant) throws SQLException {
+        Partition partition = partitions.computeIfAbsent(tenant, this::partition);
+        long start = System.nanoTime();
+        long deadline = start + acquireTimeout.toNanos();
+        try {
+            if (!partition.cap.tryAcquire(acquireTimeout.toNanos(), TimeUnit.NANOSECONDS))
+                throw partition.reject("holds its maximum of %d connection(s)".formatted(partition.limits.max()));
+            if (partition.tryMinimum()) return new Lease(partition);
+            if (!burst.tryAcquire(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                partition.cap.release();
+                throw partition.reject("is past its guaranteed connections and no burst connection is free");
+            }
+            partition.borrowed();
+            return new Lease(partition);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted waiting for a connection for Tenant: %s".formatted(tenant), e);
+        } finally {
+            if (partition.wait != null) partition.wait.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Partition partition(String tenant) {
+        Limits limits = classes.get(tenantClasses.getOrDefault(tenant, DEFAULT_CLASS));
+        boolean dedicated = tenantClasses.containsKey(tenant) || Constants.PUBLIC_SCHEMA.equals(tenant);
+        String tag = tenantTags.tag(tenant);
+        return new Partition(tenant, tag, limits, dedicated, activeByTag.computeIfAbsent(tag, t -> new AtomicInteger()), meterRegistry.getIfAvailable());
+    }
+
+    private final class Partition {
+        private final String tenant;
+        private final String tag;
+        private final Limits limits;
+        //Whether this tenant's minimum is set aside for it, rather than drawn from the shared reserve
+        private final boolean dedicated;
+        private final Semaphore cap;
+        private final AtomicInteger active = new AtomicInteger();
+        private final AtomicInteger tagActive;
+        //Connections held on reserve and burst permits; the rest are on the tenant's own minimum
+        private int reserved;
+        private int borrowed;
+        private final Timer wait;
+        private final Counter rejected;
+        private final Gauge gauge;
+
+        Partition(String tenant, String tag, Limits limits, boolean dedicated, AtomicInteger tagActive, MeterRegistry registry) {
+            this.tenant = tenant;
+            this.tag = tag;
+            this.limits = limits;
+            this.dedicated = dedicated;
+            this.tagActive = tagActive;
+            this.cap = new Semaphore(limits.max(), true);
+            //Tenants sharing a tag share its meters; registering an existing meter returns it
+            this.wait = registry == null ? null : Timer.builder("auth.tenant.pool.wait").tag("tenant", tag).register(registry);
+            this.rejected = registry == null ? null : Counter.builder("auth.tenant.pool.rejected").tag("tenant", tag).register(registry);
+            this.gauge = registry == null ? null : Gauge.builder("auth.tenant.pool.active", tagActive, AtomicInteger::get).tag("tenant", tag).register(registry);
+        }
+
+        /**
+         * Takes a connection within the minimum, set aside or from the reserve, without waiting
+         */
+        synchronized boolean tryMinimum() {
+            if (active.get() - borrowed >= limits.min()) return false;
+            if (!dedicated) {
+                if (!reserve.tryAcquire()) return false;
+                reserved++;
+            }
+            active.incrementAndGet();
+            tagActive.incrementAndGet();
+            return true;
+        }
+
+        synchronized void borrowed() {
+            active.incrementAndGet();
+            tagActive.incrementAndGet();
+            borrowed++;
+        }
+
+        /**
+         * Connections are interchangeable, so the shared permits go back first: burst, then reserve. A slot of the
+         * minimum freed while burst permits are held thereby turns one of them into a guaranteed one.
+         */
+        void returned() {
+            boolean burstPermit;
+            boolean reservePermit = false;
+            synchronized (this) {
+                active.decrementAndGet();
+                tagActive.decrementAndGet();
+                burstPermit = borrowed > 0;
+                if (burstPermit) borrowed--;
+                else if (reserved > 0) {
+                    reserved--;
+                    reservePermit = true;
+                }
+            }
+            if (burstPermit) burst.release();
+            if (reservePermit) reserve.release();
+            cap.release();
+        }
+
+        SQLTransientConnectionException reject(String reason) {
+            if (rejected != null) rejected.increment();
+            log.warn("Connection for Tenant: {} not available; tenant {}", tenant, reason);
+            return new SQLTransientConnectionException("Connection for Tenant: %s not available; tenant %s".formatted(tenant, reason));
+        }
+    }
+
+    private final class Lease {
+        private final Partition partition;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        Lease(Partition partition) {
+            this.partition = partition;
+        }
+
+        void release() {
+            if (released.compareAndSet(false, true)) partition.returned();
+        }
+
+        /**
+         * Returns the permits when the connection is closed; everything else goes to the pooled connection
+         */
+        Connection wrap(Connection connection) {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                if ("close".equals(method.getName())) {
+                    try {
+                        connection.close();
+                    } finally {
+                        release();
+                    }
+                    return null;
+                }
+                if ("isClosed".equals(method.getName()) && released.get()) return true;
+                if ("equals".equals(method.getName())) return proxy == args[0];
+                if ("hashCode".equals(method.getName())) return System.identityHashCode(proxy);
+                try {
+                    return method.invoke(connection, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            });
+        }
+    }
+}
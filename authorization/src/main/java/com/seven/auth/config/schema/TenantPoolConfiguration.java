@@ -0,0 +1,57 @@
+package com.seven.auth.config.schema;
+
+import com.seven.auth.application.TenantJobService;
+import com.seven.auth.config.TenantTags;
+import com.seven.auth.util.Constants;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Puts the pool behind a {@link TenantPartitionedDataSource} when "authentication.tenant-pool.partitioned" is
+ * true. Classes are configured under "authentication.tenant-pool.classes" as {min, max} and tenants are mapped
+ * to them by schema name under "authentication.tenant-pool.tenants"; unmapped tenants are in "default". The
+ * public schema's class must leave room beyond what the tenant job workers may hold.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "authentication.tenant-pool", name = "partitioned", havingValue = "true")
+public class TenantPoolConfiguration {
+
+    @Bean
+    public static BeanPostProcessor tenantPartitionedDataSourcePostProcessor(Environment environment, ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof HikariDataSource hikari)) return bean;
+                Binder binder = Binder.get(environment);
+                Map<String, TenantPartitionedDataSource.Limits> classes = binder
+                        .bind("authentication.tenant-pool.classes", Bindable.mapOf(String.class, TenantPartitionedDataSource.Limits.class))
+                        .orElse(Map.of(TenantPartitionedDataSource.DEFAULT_CLASS, new TenantPartitionedDataSource.Limits(1, Math.max(1, hikari.getMaximumPoolSize() / 2))));
+                Map<String, String> tenants = binder
+                        .bind("authentication.tenant-pool.tenants", Bindable.mapOf(String.class, String.class))
+                        .orElse(Map.of());
+                //Superuser requests, background work and tenant jobs all run in the public schema
+                TenantPartitionedDataSource.Limits publicLimits = classes.get(tenants.getOrDefault(Constants.PUBLIC_SCHEMA, TenantPartitionedDataSource.DEFAULT_CLASS));
+                int jobConnections = environment.getProperty("authentication.tenant-jobs.workers", Integer.class, 2) * TenantJobService.CONNECTIONS_PER_WORKER;
+                if (publicLimits != null && publicLimits.max() <= jobConnections)
+                    throw new IllegalArgumentException("Pool class of the public schema allows %d connection(s), but tenant job workers alone may hold %d"
+                            .formatted(publicLimits.max(), jobConnections));
+                return new TenantPartitionedDataSource(hikari, classes, tenants,
+                        environment.getProperty("authentication.tenant-pool.reserved", Integer.class, 2),
+                        environment.getProperty("authentication.tenant-pool.acquire-timeout", Duration.class, Duration.ofSeconds(5)),
+                        new TenantTags(environment.getProperty("authentication.metrics.max-tenant-tags", Integer.class, 50)),
+                        meterRegistry);
+            }
+        };
+    }
+}
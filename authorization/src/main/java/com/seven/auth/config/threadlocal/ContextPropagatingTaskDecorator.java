@@ -0,0 +1,24 @@
+package com.seven.auth.config.threadlocal;
+
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.security.concurrent.DelegatingSecurityContextRunnable;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Carries the submitting thread's tenant and security context into tasks run by Spring's task executors,
+ * such as CompletableFutures completed on the application task executor. Spring Boot applies it to the
+ * executors it configures, whether on platform or virtual threads.
+ */
+@Component
+public class ContextPropagatingTaskDecorator implements TaskDecorator {
+
+    @Override
+    public Runnable decorate(Runnable runnable) {
+        TenantContext.Snapshot tenant = TenantContext.capture();
+        SecurityContext securityContext = SecurityContextHolder.getContext();
+        Runnable secured = new DelegatingSecurityContextRunnable(runnable, securityContext);
+        return () -> tenant.run(secured);
+    }
+}
@@ -0,0 +1,112 @@
+package com.seven.auth.config.threadlocal;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * Per-request breakdown of where time goes, e.g. tenant resolution, account lookup, BCrypt, permissions and
+ * token minting on /auth/login.
+ * <p>
+ * A filter starts a recording for each request; code on the request thread wraps a phase in
+ * {@code try (RequestTimings.Phase ignored = RequestTimings.phase("bcrypt")) {...}}. Phases run more than
+ * once in a request add up. Without a recording, e.g. on background threads, phases cost nothing.
+ */
+public class RequestTimings {
+    private static final ThreadLocal<Recording> CURRENT = new ThreadLocal<>();
+    private static final Phase NOOP = new Phase(null, null, 0);
+
+    private RequestTimings() {
+    }
+
+    public static Recording start(String operation) {
+        Recording recording = new Recording(operation, System.nanoTime());
+        CURRENT.set(recording);
+        return recording;
+    }
+
+    /**
+     * @return the recording of the request on this thread, or null
+     */
+    public static Recording current() {
+        return CURRENT.get();
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    public static void tenant(String tenant) {
+        Recording recording = CURRENT.get();
+        if (recording != null) recording.tenant = tenant;
+    }
+
+    public static Phase phase(String name) {
+        Recording recording = CURRENT.get();
+        return recording == null ? NOOP : new Phase(recording, name, System.nanoTime());
+    }
+
+    public static final class Phase implements AutoCloseable {
+        private final Recording recording;
+        private final String name;
+        private final long start;
+
+        private Phase(Recording recording, String name, long start) {
+            this.recording = recording;
+            this.name = name;
+            this.start = start;
+        }
+
+        @Override
+        public void close() {
+            if (recording != null) recording.phases.merge(name, System.nanoTime() - start, Long::sum);
+        }
+    }
+
+    public static final class Recording {
+        private final String operation;
+        private final long start;
+        private final Map<String, Long> phases = new LinkedHashMap<>();
+        private String tenant;
+
+        private Recording(String operation, long start) {
+            this.operation = operation;
+            this.start = start;
+        }
+
+        public String operation() {
+            return operation;
+        }
+
+        public String tenant() {
+            return tenant;
+        }
+
+        public long elapsedNanos() {
+            return System.nanoTime() - start;
+        }
+
+        /**
+         * @return phase names and their total nanoseconds, in the order they first ran
+         */
+        public Map<String, Long> phases() {
+            return Collections.unmodifiableMap(phases);
+        }
+
+        /**
+         * @return the phases so far and the elapsed time as a Server-Timing header value, in milliseconds
+         */
+        public String serverTiming() {
+            StringJoiner header = new StringJoiner(", ");
+            phases.forEach((name, nanos) -> header.add(entry(name, nanos)));
+            header.add(entry("total", elapsedNanos()));
+            return header.toString();
+        }
+
+        private static String entry(String name, long nanos) {
+            return String.format(Locale.ROOT, "%s;dur=%.1f", name, nanos / 1_000_000.0);
+        }
+    }
+}
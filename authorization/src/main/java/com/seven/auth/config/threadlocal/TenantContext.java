@@ -5,7 +5,16 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Optional;
+import java.util.concurrent.Callable;
 
+/**
+ * The tenant schema and database vendor of the work running on the current thread.
+ * <p>
+ * {@link #runWith} and {@link #callWith} bind a tenant for the extent of a task, such as the rest of a filter
+ * chain, and restore the previous binding afterwards; {@link #capture()} carries the current binding into
+ * tasks run on other threads. The set/clear pairs remain for Hibernate's tenant resolution. Code written
+ * against these reads the same as with a ScopedValue, which is still a preview API on Java 21.
+ */
 public class TenantContext {
     private static final Logger log = LoggerFactory.getLogger(TenantContext.class);
     private static final ThreadLocal<String> CURRENT_TENANT = new ThreadLocal<>();
@@ -34,4 +43,51 @@ public class TenantContext {
     }
 
     public static void clearCurrentDbVendor(){CURRENT_DB_VENDOR.remove();}
+
+    public static void runWith(String schemaName, Runnable task) {
+        new Snapshot(schemaName, CURRENT_DB_VENDOR.get()).run(task);
+    }
+
+    public static <T> T callWith(String schemaName, Callable<T> task) throws Exception {
+        return new Snapshot(schemaName, CURRENT_DB_VENDOR.get()).call(task);
+    }
+
+    /**
+     * @return the current binding, to be re-established by tasks handed to other threads
+     */
+    public static Snapshot capture() {
+        return new Snapshot(CURRENT_TENANT.get(), CURRENT_DB_VENDOR.get());
+    }
+
+    public record Snapshot(String tenant, String dbVendor) {
+        public void run(Runnable task) {
+            Snapshot previous = bind(this);
+            try {
+                task.run();
+            } finally {
+                bind(previous);
+            }
+        }
+
+        public <T> T call(Callable<T> task) throws Exception {
+            Snapshot previous = bind(this);
+            try {
+                return task.call();
+            } finally {
+                bind(previous);
+            }
+        }
+
+        private static Snapshot bind(Snapshot snapshot) {
+            Snapshot previous = capture();
+            set(CURRENT_TENANT, snapshot.tenant());
+            set(CURRENT_DB_VENDOR, snapshot.dbVendor());
+            return previous;
+        }
+
+        private static void set(ThreadLocal<String> threadLocal, String value) {
+            if (value == null) threadLocal.remove();
+            else threadLocal.set(value);
+        }
+    }
 }
@@ -5,6 +5,8 @@ import com.seven.auth.exception.AuthorizationException;
 import com.seven.auth.exception.ClientException;
 import com.seven.auth.exception.ConflictException;
 import com.seven.auth.exception.NotFoundException;
+import com.seven.auth.permission.EffectivePermissionCache;
+import com.seven.auth.permission.PermissionDictionaryService;
 import com.seven.auth.util.Pagination;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -22,9 +24,14 @@ public class DomainService{
     private final Logger log = LoggerFactory.getLogger(getClass());
 
     private final DomainRepository domainRepository;
+    private final PermissionDictionaryService permissionDictionaryService;
+    private final EffectivePermissionCache effectivePermissionCache;
 
-    public DomainService(DomainRepository domainRepository) {
+    public DomainService(DomainRepository domainRepository, PermissionDictionaryService permissionDictionaryService,
+                         EffectivePermissionCache effectivePermissionCache) {
         this.domainRepository = domainRepository;
+        this.permissionDictionaryService = permissionDictionaryService;
+        this.effectivePermissionCache = effectivePermissionCache;
     }
 
     public Page<DomainDTO.Record> getAll(Pagination pagination, DomainDTO.Filter filter) throws AuthorizationException {
@@ -75,6 +82,9 @@ public class DomainService{
         log.info("Deleting Domain: {} for Tenant: {}", id, tenant);
         try {
             domainRepository.deleteById(id);
+            permissionDictionaryService.invalidate(tenant);
+            //Permissions of the domain, and their grants, go with it
+            effectivePermissionCache.invalidateTenant(tenant);
             log.info("Domain deleted successfully");
         } catch (EmptyResultDataAccessException e) {
             log.error("Domain {} not found.", id);
@@ -99,6 +109,7 @@ public class DomainService{
             Domain finalDomainEntity = domainEntity;
             domainEntity.getPermissions().forEach(permission -> permission.setDomain(finalDomainEntity));
             domainEntity = domainRepository.save(domainEntity);
+            permissionDictionaryService.invalidate(tenant);
             DomainDTO.Record response =  DomainDTO.Record.from(domainEntity);
 
             log.info("Domain {} registered successfully with id {}", domainEntity.getName(), domainEntity.getId());
@@ -0,0 +1,16 @@
+package com.seven.auth.exception;
+
+import java.time.Duration;
+
+public class ServiceUnavailableException extends AuthorizationException {
+    private final Duration retryAfter;
+
+    public ServiceUnavailableException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
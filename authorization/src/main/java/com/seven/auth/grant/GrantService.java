@@ -5,6 +5,7 @@ import com.seven.auth.exception.AuthorizationException;
 import com.seven.auth.exception.ClientException;
 import com.seven.auth.exception.ConflictException;
 import com.seven.auth.exception.NotFoundException;
+import com.seven.auth.permission.EffectivePermissionCache;
 import com.seven.auth.util.Pagination;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -22,9 +23,11 @@ public class GrantService{
     private final Logger log = LoggerFactory.getLogger(getClass());
 
     private final GrantRepository grantRepository;
+    private final EffectivePermissionCache effectivePermissionCache;
 
-    public GrantService(GrantRepository grantRepository) {
+    public GrantService(GrantRepository grantRepository, EffectivePermissionCache effectivePermissionCache) {
         this.grantRepository = grantRepository;
+        this.effectivePermissionCache = effectivePermissionCache;
     }
 
     public Page<GrantDTO.Record> getAll(Pagination pagination, GrantDTO.Filter filter) throws AuthorizationException {
@@ -75,6 +78,7 @@ public class GrantService{
         log.info("Deleting Grant: {} for Tenant: {}", id, tenant);
         try {
             grantRepository.deleteById(id);
+            effectivePermissionCache.invalidateTenant(tenant);
             log.info("Grant deleted successfully");
         } catch (EmptyResultDataAccessException e) {
             log.error("Grant {} not found.", id);
@@ -98,6 +102,7 @@ public class GrantService{
 
             Grant grantEntity = Grant.from(request);
             grantEntity = grantRepository.save(grantEntity);
+            effectivePermissionCache.invalidateTenant(tenant);
             GrantDTO.Record response = GrantDTO.Record.from(grantEntity);
 
             log.info("Grant {} registered successfully", grantEntity.getId());
@@ -0,0 +1,123 @@
+package com.seven.auth.password;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Picks the BCrypt cost for the cluster and builds the encoder new hashes are written with.
+ * <p>
+ * Unless "authentication.password.bcrypt.cost" pins it, the cost is calibrated once: the strongest cost
+ * between min-cost and max-cost whose median hash time stays within "authentication.password.bcrypt.latency-budget"
+ * on the first node to start. That node stores it in public.auth_setting and every other node uses the stored
+ * cost, so nodes of different speeds agree; delete the row to recalibrate. Stored hashes of a lower cost, and
+ * legacy hashes without an "{id}" prefix, report {@link PasswordEncoder#upgradeEncoding} so that they are
+ * rehashed on the next successful login. Hashes are never rewritten at a lower cost.
+ */
+public final class PasswordEncoderCalibration {
+    private static final Logger log = LoggerFactory.getLogger(PasswordEncoderCalibration.class);
+    private static final String BCRYPT = "bcrypt";
+    private static final String COST_SETTING = "bcrypt.cost";
+    private static final int SAMPLES = 3;
+
+    private PasswordEncoderCalibration() {
+    }
+
+    public static PasswordEncoder calibrated(Environment environment, JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+        Integer pinned = environment.getProperty("authentication.password.bcrypt.cost", Integer.class);
+        if (pinned != null) return encoder(pinned);
+
+        Integer stored = storedCost(jdbcTemplate);
+        if (stored == null) {
+            int calibrated = calibrate(
+                    environment.getProperty("authentication.password.bcrypt.latency-budget", Duration.class, Duration.ofMillis(250)),
+                    environment.getProperty("authentication.password.bcrypt.min-cost", Integer.class, 10),
+                    environment.getProperty("authentication.password.bcrypt.max-cost", Integer.class, 14));
+            //Another node may have stored its cost meanwhile; theirs wins
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.update(
+                    "INSERT INTO public.auth_setting (name, value) VALUES (?, ?) ON CONFLICT (name) DO NOTHING",
+                    COST_SETTING, String.valueOf(calibrated)));
+            stored = storedCost(jdbcTemplate);
+        }
+        log.info("BCrypt cost: {}", stored);
+        return encoder(stored);
+    }
+
+    /**
+     * @return the strongest cost in [minCost, maxCost] whose hash time fits the budget, or minCost if none does
+     */
+    public static int calibrate(Duration budget, int minCost, int maxCost) {
+        long budgetNanos = budget.toNanos();
+        int cost = minCost;
+        long nanos = medianHashNanos(cost);
+        //Each cost step doubles the work; stop before a step that is expected to exceed the budget
+        while (cost < maxCost && nanos * 2 <= budgetNanos) {
+            long next = medianHashNanos(cost + 1);
+            if (next > budgetNanos) break;
+            cost++;
+            nanos = next;
+        }
+        log.info("Calibrated BCrypt cost: {} ({} ms per hash; budget {} ms)", cost, nanos / 1_000_000, budget.toMillis());
+        return cost;
+    }
+
+    /**
+     * A delegating encoder writing "{bcrypt}" hashes at the given cost that still reads legacy, unprefixed BCrypt hashes
+     */
+    public static PasswordEncoder encoder(int cost) {
+        BCryptPasswordEncoder bcrypt = new CostBCryptPasswordEncoder(cost);
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder(BCRYPT, Map.of(BCRYPT, bcrypt));
+        encoder.setDefaultPasswordEncoderForMatches(bcrypt);
+        return encoder;
+    }
+
+    private static Integer storedCost(JdbcTemplate jdbcTemplate) {
+        List<String> values = jdbcTemplate.queryForList("SELECT value FROM public.auth_setting WHERE name = ?", String.class, COST_SETTING);
+        return values.isEmpty() ? null : Integer.valueOf(values.get(0));
+    }
+
+    private static long medianHashNanos(int cost) {
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(cost);
+        long[] samples = new long[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            long start = System.nanoTime();
+            bcrypt.encode("calibration");
+            samples[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(samples);
+        return samples[SAMPLES / 2];
+    }
+
+    /**
+     * Requests an upgrade when the stored cost is below the configured one
+     */
+    private static final class CostBCryptPasswordEncoder extends BCryptPasswordEncoder {
+        private final int cost;
+
+        CostBCryptPasswordEncoder(int cost) {
+            super(cost);
+            this.cost = cost;
+        }
+
+        @Override
+        public boolean upgradeEncoding(String encodedPassword) {
+            //$2a$12$<salt and hash>
+            if (encodedPassword == null || encodedPassword.length() < 7 || encodedPassword.charAt(3) != '$') return false;
+            try {
+                return Integer.parseInt(encodedPassword, 4, 6, 10) < cost;
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package com.seven.auth.password;
+
+import com.seven.auth.config.threadlocal.RequestTimings;
+import com.seven.auth.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.env.Environment;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs password hashing and verification on a dedicated, core-sized pool with a bounded queue, so that
+ * a burst of logins or registrations cannot occupy every request thread with BCrypt work.
+ * <p>
+ * When the queue is full, or a task waits longer than "authentication.password.hashing.max-wait", the
+ * caller fails fast with a {@link ServiceUnavailableException} carrying the configured Retry-After.
+ * Timing out only releases the caller: a task still queued is dropped, but BCrypt does not respond to
+ * interrupts, so a hash already running keeps its pool thread busy until it completes.
+ * Queue depth, active workers, rejections and hash latency are published as "auth.password.hashing"
+ * metrics when a MeterRegistry is present.
+ */
+public class PasswordHashingService implements PasswordEncoder {
+    private static final Logger log = LoggerFactory.getLogger(PasswordHashingService.class);
+
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final Duration maxWait;
+    private final Duration retryAfter;
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+    private final Counter rejections;
+
+    public PasswordHashingService(PasswordEncoder delegate, Environment environment, ObjectProvider<MeterRegistry> meterRegistry) {
+        this.delegate = delegate;
+        int threads = environment.getProperty("authentication.password.hashing.threads", Integer.class, Runtime.getRuntime().availableProcessors());
+        int queueCapacity = environment.getProperty("authentication.password.hashing.queue-capacity", Integer.class, threads * 16);
+        this.maxWait = environment.getProperty("authentication.password.hashing.max-wait", Duration.class, Duration.ofSeconds(5));
+        this.retryAfter = environment.getProperty("authentication.password.hashing.retry-after", Duration.class, Duration.ofSeconds(1));
+
+        AtomicInteger count = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.executor.prestartAllCoreThreads();
+
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry != null) {
+            Gauge.builder("auth.password.hashing.queue.depth", executor, e -> e.getQueue().size()).register(registry);
+            Gauge.builder("auth.password.hashing.active", executor, ThreadPoolExecutor::getActiveCount).register(registry);
+            this.encodeTimer = Timer.builder("auth.password.hashing.latency").tag("operation", "encode").register(registry);
+            this.matchesTimer = Timer.builder("auth.password.hashing.latency").tag("operation", "matches").register(registry);
+            this.rejections = Counter.builder("auth.password.hashing.rejected").register(registry);
+        } else {
+            this.encodeTimer = null;
+            this.matchesTimer = null;
+            this.rejections = null;
+        }
+        log.info("Password hashing pool started; threads: {}, queue capacity: {}", threads, queueCapacity);
+    }
+
+    /**
+     * Hashes a password on the hashing pool
+     */
+    public String hash(CharSequence rawPassword) throws ServiceUnavailableException {
+        return submit(() -> delegate.encode(rawPassword), encodeTimer);
+    }
+
+    /**
+     * Verifies a password against its stored hash on the hashing pool
+     */
+    public boolean verify(CharSequence rawPassword, String encodedPassword) throws ServiceUnavailableException {
+        return submit(() -> delegate.matches(rawPassword, encodedPassword), matchesTimer);
+    }
+
+    /**
+     * Hashes a batch of passwords with at most parallelism of them on the pool at once, so that bulk work
+     * leaves room for interactive logins. A full queue is waited out rather than rejected, up to max-wait.
+     */
+    public List<String> hashAll(List<? extends CharSequence> rawPasswords, int parallelism) throws ServiceUnavailableException {
+        Semaphore permits = new Semaphore(Math.max(1, parallelism));
+        List<Future<String>> futures = new ArrayList<>(rawPasswords.size());
+        try {
+            for (CharSequence rawPassword : rawPasswords) {
+                permits.acquire();
+                Callable<String> task = () -> {
+                    try {
+                        return delegate.encode(rawPassword);
+                    } finally {
+                        permits.release();
+                    }
+                };
+                futures.add(submitWaiting(encodeTimer == null ? task : () -> encodeTimer.recordCallable(task), permits));
+            }
+            List<String> hashes = new ArrayList<>(futures.size());
+            for (Future<String> future : futures) {
+                hashes.add(future.get());
+            }
+            return hashes;
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Password hashing interrupted", retryAfter);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) throw runtimeException;
+            throw new IllegalStateException(e.getCause());
+        } catch (ServiceUnavailableException e) {
+            futures.forEach(future -> future.cancel(true));
+            throw e;
+        }
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        try {
+            return hash(rawPassword);
+        } catch (ServiceUnavailableException e) {
+            throw new Rejected(e);
+        }
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        try {
+            return verify(rawPassword, encodedPassword);
+        } catch (ServiceUnavailableException e) {
+            throw new Rejected(e);
+        }
+    }
+
+    /**
+     * Rehashing on login is opportunistic, so it is skipped while the pool has no spare queue capacity
+     */
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword) && executor.getQueue().remainingCapacity() > 0;
+    }
+
+    /**
+     * Finds a hashing rejection in the cause chain of an exception raised through the {@link PasswordEncoder}
+     * interface, e.g. by an AuthenticationProvider
+     */
+    public static Optional<ServiceUnavailableException> rejection(Throwable throwable) {
+        for (Throwable t = throwable; t != null; t = t.getCause()) {
+            if (t instanceof Rejected rejected) return Optional.of(rejected.getCause());
+        }
+        return Optional.empty();
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    private <T> T submit(Callable<T> task, Timer timer) throws ServiceUnavailableException {
+        Future<T> future;
+        try {
+            future = executor.submit(timer == null ? task : () -> timer.recordCallable(task));
+        } catch (RejectedExecutionException e) {
+            if (rejections != null) rejections.increment();
+            log.warn("Password hashing queue full; rejecting request");
+            throw new ServiceUnavailableException("Server is busy, please retry shortly", retryAfter);
+        }
+        //Queue wait included: that is what the request sees
+        try (RequestTimings.Phase ignored = RequestTimings.phase("bcrypt")) {
+            return future.get(maxWait.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            //Removes the task if still queued; a hash already running finishes regardless
+            future.cancel(true);
+            if (rejections != null) rejections.increment();
+            log.warn("Password hashing did not complete within {}", maxWait);
+            throw new ServiceUnavailableException("Server is busy, please retry shortly", retryAfter);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Password hashing interrupted", retryAfter);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) throw runtimeException;
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private <T> Future<T> submitWaiting(Callable<T> task, Semaphore permits) throws ServiceUnavailableException, InterruptedException {
+        long deadline = System.nanoTime() + maxWait.toNanos();
+        while (true) {
+            try {
+                return executor.submit(task);
+            } catch (RejectedExecutionException e) {
+                if (System.nanoTime() - deadline > 0) {
+                    permits.release();
+                    if (rejections != null) rejections.increment();
+                    throw new ServiceUnavailableException("Server is busy, please retry shortly", retryAfter);
+                }
+                Thread.sleep(10);
+            }
+        }
+    }
+
+    /**
+     * Carries a {@link ServiceUnavailableException} through the unchecked {@link PasswordEncoder} interface
+     */
+    public static class Rejected extends RuntimeException {
+        Rejected(ServiceUnavailableException cause) {
+            super(cause.getMessage(), cause);
+        }
+
+        @Override
+        public synchronized ServiceUnavailableException getCause() {
+            return (ServiceUnavailableException) super.getCause();
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package com.seven.auth.permission;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.seven.auth.config.threadlocal.TenantContext;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches each account's effective permission names per tenant, bounded by
+ * "authentication.permission-cache.max-size" and expired after "authentication.permission-cache.ttl".
+ * <p>
+ * Writes to assignments invalidate the affected account; writes that can change the permissions of many
+ * accounts at once (grants, and deletes of roles, domains or permissions with their cascades) invalidate
+ * the whole tenant by moving it to a new generation, which leaves the old entries unreachable until they
+ * are evicted. Permissions read outside the cache are only kept if no invalidation happened since the
+ * {@link #stamp()} taken before reading them, so a racing write cannot leave them cached until the TTL
+ * expires. Hit, miss and eviction counts are published as "auth.permission.cache" metrics when a
+ * MeterRegistry is present.
+ * <p>
+ * Invalidations are announced on the "auth_effective_permission" channel and applied by a background
+ * listener on every instance, this one included, once the writing transaction commits. While the listener
+ * is not connected, notifications may be missed, so the cache is bypassed and emptied on reconnect. With
+ * "authentication.permission-cache.listen" off, writes on other instances are only bounded by the TTL.
+ */
+@Service
+public class EffectivePermissionCache {
+    private final Logger log = LoggerFactory.getLogger(getClass());
+    private static final String CHANNEL = "auth_effective_permission";
+
+    private final PermissionRepository permissionRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final DataSource dataSource;
+    private final boolean listen;
+    private final Cache<Key, List<String>> cache;
+    private final ConcurrentMap<String, AtomicLong> generations = new ConcurrentHashMap<>();
+    //Bumped before every invalidation, of an account or a tenant
+    private final AtomicLong invalidations = new AtomicLong();
+    private volatile boolean listening;
+    private ExecutorService listener;
+
+    private record Key(String tenant, long generation, String email) {
+    }
+
+    public EffectivePermissionCache(PermissionRepository permissionRepository, JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                                    DataSource dataSource, Environment environment, ObjectProvider<MeterRegistry> meterRegistry) {
+        this.permissionRepository = permissionRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.dataSource = dataSource;
+        this.listen = environment.getProperty("authentication.permission-cache.listen", Boolean.class, true);
+        boolean enabled = environment.getProperty("authentication.permission-cache.enabled", Boolean.class, true);
+        long maxSize = environment.getProperty("authentication.permission-cache.max-size", Long.class, 10_000L);
+        Duration ttl = environment.getProperty("authentication.permission-cache.ttl", Duration.class, Duration.ofMinutes(10));
+
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(enabled ? maxSize : 0)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        meterRegistry.ifAvailable(registry -> CaffeineCacheMetrics.monitor(registry, cache, "auth.permission.cache"));
+    }
+
+    @PostConstruct
+    public void startListener() {
+        if (!listen) return;
+        listener = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "effective-permission-cache");
+            thread.setDaemon(true);
+            return thread;
+        });
+        listener.execute(this::listen);
+    }
+
+    @PreDestroy
+    public void stopListener() {
+        if (listener != null) listener.shutdownNow();
+    }
+
+    /**
+     * @return the distinct permission names granted to the account in the current tenant
+     */
+    public List<String> get(String email) {
+        if (!trusted()) return load(email);
+        return cache.get(key(TenantContext.getCurrentTenant(), email), k -> load(email));
+    }
+
+    /**
+     * Reads the account's permissions past the cache and caches them, for tokens that must not carry a
+     * permission revoked on another instance a moment ago
+     */
+    public List<String> getFresh(String email) {
+        long stamp = stamp();
+        List<String> permissions = load(email);
+        put(email, permissions, stamp);
+        return permissions;
+    }
+
+    /**
+     * @return a stamp to take before reading permissions that will be passed to {@link #put}
+     */
+    public long stamp() {
+        return invalidations.get();
+    }
+
+    /**
+     * Seeds the cache with permissions read elsewhere, e.g. by the login query. They are dropped again if
+     * anything was invalidated after stamp was taken, since they may predate that write.
+     */
+    public void put(String email, List<String> permissions, long stamp) {
+        if (!trusted()) return;
+        Key key = key(TenantContext.getCurrentTenant(), email);
+        cache.put(key, List.copyOf(permissions));
+        //An invalidation after this check finds the entry in place and removes it itself
+        if (invalidations.get() != stamp) cache.invalidate(key);
+    }
+
+    public void invalidate(String tenant, String email) {
+        evict(tenant, email);
+        announce(tenant + ":" + email);
+    }
+
+    public void invalidateTenant(String tenant) {
+        log.info("Invalidating cached effective permissions for Tenant: {}", tenant);
+        evictTenant(tenant);
+        announce(tenant);
+    }
+
+    private boolean trusted() {
+        return !listen || listening;
+    }
+
+    private void evict(String tenant, String email) {
+        invalidations.incrementAndGet();
+        cache.invalidate(key(tenant, email));
+    }
+
+    private void evictTenant(String tenant) {
+        invalidations.incrementAndGet();
+        generations.computeIfAbsent(tenant, t -> new AtomicLong()).incrementAndGet();
+    }
+
+    /**
+     * Tells every instance to invalidate; delivered once the notifying transaction commits. Schema names
+     * hold no colon, so the first one separates the tenant from the account.
+     */
+    private void announce(String payload) {
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    jdbcTemplate.query("SELECT pg_notify(?, ?)", rs -> null, CHANNEL, payload));
+        } catch (Exception e) {
+            //Other instances would keep serving the old permissions, so stop trusting the cache until reconnected
+            listening = false;
+            log.error("Unable to announce permission change {}. Message: {}", payload, e.getMessage());
+        }
+    }
+
+    private void apply(String payload) {
+        int colon = payload.indexOf(':');
+        if (colon < 0) evictTenant(payload);
+        else evict(payload.substring(0, colon), payload.substring(colon + 1));
+    }
+
+    private void listen() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try (Connection connection = listenerConnection()) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                if (!connection.getAutoCommit()) connection.commit();
+                //Anything cached before subscribing may have missed an invalidation
+                invalidations.incrementAndGet();
+                cache.invalidateAll();
+                listening = true;
+                log.info("Listening for effective permission invalidations");
+
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (listening && !Thread.currentThread().isInterrupted()) {
+                    PGNotification[] notifications = pgConnection.getNotifications(10_000);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            apply(notification.getParameter());
+                        }
+                    }
+                    if ((notifications == null || notifications.length == 0) && !connection.isValid(5))
+                        throw new SQLException("Listener connection lost");
+                }
+            } catch (Exception e) {
+                log.error("Effective permission listener stopped; bypassing the cache. Message: {}", e.getMessage());
+            }
+            listening = false;
+            try {
+                Thread.sleep(5_000);
+            } catch (InterruptedException interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        listening = false;
+    }
+
+    /**
+     * Held for as long as the listener runs; taken straight from the pool, past any tenant connection budget
+     */
+    private Connection listenerConnection() throws SQLException {
+        if (dataSource.isWrapperFor(HikariDataSource.class)) return dataSource.unwrap(HikariDataSource.class).getConnection();
+        return dataSource.getConnection();
+    }
+
+    private List<String> load(String email) {
+        return permissionRepository.findNamesByAccount(email);
+    }
+
+    private Key key(String tenant, String email) {
+        AtomicLong generation = generations.get(tenant);
+        return new Key(tenant, generation == null ? 0 : generation.get(), email);
+    }
+}
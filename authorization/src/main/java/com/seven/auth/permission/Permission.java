@@ -3,6 +3,8 @@ import com.seven.auth.config.audit.AuditableEntity;
 import com.seven.auth.domain.Domain;
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.Generated;
+import org.hibernate.generator.EventType;
 import org.springframework.security.core.GrantedAuthority;
 
 import java.util.Objects;
@@ -30,6 +32,11 @@ public class Permission extends AuditableEntity implements GrantedAuthority {
     @ManyToOne(fetch = FetchType.LAZY)
     private Domain domain;
 
+    //Allocated by the database; see PermissionDictionaryService
+    @Column(name = "bit_index", insertable = false, updatable = false)
+    @Generated(event = EventType.INSERT)
+    private Integer bitIndex;
+
     public Permission() {
     }
     public enum PermissionType{CREATE, READ, UPDATE, DELETE}
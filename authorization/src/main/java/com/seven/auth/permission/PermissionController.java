@@ -51,6 +51,13 @@ public class PermissionController {
         return ok(permissionRecord);
     }
 
+    @PostMapping("/effective/rebuild")
+    @Parameter(name = Constants.TENANT_ID_KEY, in = ParameterIn.HEADER)
+    @Authorize(permissions = {PEnum.update_permission, PEnum.super_update})
+    public ResponseEntity <Response> rebuildEffectivePermissions() throws AuthorizationException {
+        return ok(permissionService.rebuildEffectivePermissions());
+    }
+
 //    @PutMapping("/{permissionId}")
 //    @Parameter(name = Constants.TENANT_ID_KEY, in = ParameterIn.HEADER)
 //    public ResponseEntity <Response> updateResource(@Valid @NotNull @PathVariable(value = "permissionId") UUID id, @Valid @RequestBody PermissionDTO.Update request) {
@@ -0,0 +1,35 @@
+package com.seven.auth.permission;
+
+import com.seven.auth.dto.permission.PermissionDictionary;
+import com.seven.auth.exception.AuthorizationException;
+import com.seven.auth.exception.NotFoundException;
+import com.seven.auth.util.Constants;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+
+/**
+ * Publishes tenant permission dictionaries so that adapters can decode compact permission bitmaps.
+ * Only authenticated service clients may read them, and the public schema's dictionary, which names
+ * every tenant through its elevated permissions, is never published.
+ */
+@RestController
+public class PermissionDictionaryController {
+    private static final CacheControl CACHE_CONTROL = CacheControl.maxAge(Duration.ofMinutes(5)).cachePrivate();
+    private final PermissionDictionaryService permissionDictionaryService;
+
+    public PermissionDictionaryController(PermissionDictionaryService permissionDictionaryService) {
+        this.permissionDictionaryService = permissionDictionaryService;
+    }
+
+    @GetMapping(value = "/.well-known/permissions/{tenant}", produces = "application/json")
+    public ResponseEntity<PermissionDictionary> getResource(@PathVariable(value = "tenant") String tenant) throws AuthorizationException {
+        if (Constants.PUBLIC_SCHEMA.equals(tenant))
+            throw new NotFoundException("Tenant %s not found".formatted(tenant));
+        return ResponseEntity.ok().cacheControl(CACHE_CONTROL).body(permissionDictionaryService.get(tenant));
+    }
+}
@@ -0,0 +1,103 @@
+package com.seven.auth.permission;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.seven.auth.dto.permission.PermissionDictionary;
+import com.seven.auth.exception.AuthorizationException;
+import com.seven.auth.exception.NotFoundException;
+import com.seven.auth.exception.ServiceUnavailableException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
+
+/**
+ * Builds and caches each tenant's {@link PermissionDictionary} from auth_permission.bit_index.
+ * Schemas are addressed explicitly, so a dictionary can be loaded for the tenant named in a token
+ * regardless of the tenant the current request is routed to. Tenants without a dictionary are
+ * remembered for "authentication.permission-dictionary.negative-ttl", so asking again does not
+ * reach the database. Only a missing schema or table counts as that; any other failure is answered
+ * with 503 and tried again on the next request.
+ */
+@Service
+public class PermissionDictionaryService {
+    private final Logger log = LoggerFactory.getLogger(getClass());
+    private static final Pattern SCHEMA_NAME = Pattern.compile("^\\w{1,63}$");
+    //invalid_schema_name and undefined_table
+    private static final Set<String> MISSING_STATES = Set.of("3F000", "42P01");
+    private static final Duration RETRY_AFTER = Duration.ofSeconds(5);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ConcurrentMap<String, PermissionDictionary> dictionaries = new ConcurrentHashMap<>();
+    private final Cache<String, Boolean> missing;
+
+    public PermissionDictionaryService(JdbcTemplate jdbcTemplate, Environment environment) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.missing = Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterWrite(environment.getProperty("authentication.permission-dictionary.negative-ttl", Duration.class, Duration.ofSeconds(30)))
+                .build();
+    }
+
+    public PermissionDictionary get(String tenant) throws AuthorizationException {
+        PermissionDictionary dictionary = dictionaries.get(tenant);
+        return dictionary != null ? dictionary : reload(tenant);
+    }
+
+    /**
+     * Returns a dictionary able to decode tokens minted against minVersion, reloading a stale one
+     */
+    public PermissionDictionary get(String tenant, int minVersion) throws AuthorizationException {
+        PermissionDictionary dictionary = get(tenant);
+        return dictionary.getVersion() >= minVersion ? dictionary : reload(tenant);
+    }
+
+    public PermissionDictionary reload(String tenant) throws AuthorizationException {
+        PermissionDictionary dictionary = load(tenant);
+        dictionaries.put(tenant, dictionary);
+        return dictionary;
+    }
+
+    public void invalidate(String tenant) {
+        dictionaries.remove(tenant);
+        missing.invalidate(tenant);
+    }
+
+    private PermissionDictionary load(String tenant) throws AuthorizationException {
+        if (tenant == null || !SCHEMA_NAME.matcher(tenant).matches() || missing.getIfPresent(tenant) != null)
+            throw new NotFoundException("Tenant %s not found".formatted(tenant));
+        try {
+            log.info("Loading permission dictionary for Tenant: {}", tenant);
+            Integer version = jdbcTemplate.queryForObject(
+                    "SELECT CASE WHEN is_called THEN last_value + 1 ELSE last_value END FROM \"%s\".auth_permission_bit_index_seq".formatted(tenant),
+                    Integer.class);
+            List<String> permissions = new ArrayList<>(Collections.nCopies(version == null ? 0 : version, null));
+            jdbcTemplate.query("SELECT bit_index, name FROM \"%s\".auth_permission".formatted(tenant),
+                    rs -> {
+                        int index = rs.getInt(1);
+                        if (index < permissions.size()) permissions.set(index, rs.getString(2));
+                    });
+            return new PermissionDictionary(tenant, permissions.size(), permissions);
+        } catch (Exception e) {
+            if (NestedExceptionUtils.getMostSpecificCause(e) instanceof SQLException sql && MISSING_STATES.contains(sql.getSQLState())) {
+                log.error("No permission dictionary for Tenant: {}. Message: {}", tenant, e.getMessage());
+                missing.put(tenant, Boolean.TRUE);
+                throw new NotFoundException("Permission dictionary for tenant %s not found".formatted(tenant));
+            }
+            log.error("Unable to load permission dictionary for Tenant: {}. Message: {}", tenant, e.getMessage());
+            throw new ServiceUnavailableException("Permission dictionary for tenant %s is unavailable".formatted(tenant), RETRY_AFTER);
+        }
+    }
+}
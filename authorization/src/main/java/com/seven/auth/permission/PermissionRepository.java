@@ -4,6 +4,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.UUID;
@@ -12,6 +13,18 @@ import java.util.UUID;
 public interface PermissionRepository extends JpaRepository<Permission, UUID>, JpaSpecificationExecutor<Permission> {
     Boolean existsByName(String name);
 
-    @Query(value = "SELECT g.permission FROM Grant g JOIN Assignment a ON g.role.id = a.id.roleId WHERE a.id.accountEmail = ?1")
+    @Query(value = "SELECT p.* FROM auth_permission p JOIN auth_effective_permission e ON e.permission_id = p.id WHERE e.account_email = ?1", nativeQuery = true)
     List<Permission> findAllByAccount(String email);
+
+    @Query(value = "SELECT permission_name FROM auth_effective_permission WHERE account_email = ?1", nativeQuery = true)
+    List<String> findNamesByAccount(String email);
+
+    /**
+     * Recomputes auth_effective_permission for the current schema from its assignments and grants
+     *
+     * @return the number of rows written
+     */
+    @Transactional
+    @Query(value = "SELECT auth_rebuild_effective_permissions()", nativeQuery = true)
+    Integer rebuildEffectivePermissions();
 }
@@ -5,6 +5,7 @@ import com.seven.auth.exception.AuthorizationException;
 import com.seven.auth.exception.ClientException;
 import com.seven.auth.exception.ConflictException;
 import com.seven.auth.exception.NotFoundException;
+import com.seven.auth.exception.ServerException;
 import com.seven.auth.util.Pagination;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -22,9 +23,14 @@ public class PermissionService{
     private final Logger log = LoggerFactory.getLogger(getClass());
 
     private final PermissionRepository permissionRepository;
+    private final PermissionDictionaryService permissionDictionaryService;
+    private final EffectivePermissionCache effectivePermissionCache;
 
-    public PermissionService(PermissionRepository permissionRepository) {
+    public PermissionService(PermissionRepository permissionRepository, PermissionDictionaryService permissionDictionaryService,
+                             EffectivePermissionCache effectivePermissionCache) {
         this.permissionRepository = permissionRepository;
+        this.permissionDictionaryService = permissionDictionaryService;
+        this.effectivePermissionCache = effectivePermissionCache;
     }
 
     public Page<PermissionDTO.Record> getAll(Pagination pagination, PermissionDTO.Filter filter) throws AuthorizationException {
@@ -75,6 +81,8 @@ public class PermissionService{
         log.info("Deleting Permission: {} for Tenant: {}", id, tenant);
         try {
             permissionRepository.deleteById(id);
+            permissionDictionaryService.invalidate(tenant);
+            effectivePermissionCache.invalidateTenant(tenant);
             log.info("Permission deleted successfully");
         } catch (EmptyResultDataAccessException e) {
             log.error("Permission {} not found.", id);
@@ -97,6 +105,7 @@ public class PermissionService{
 
             Permission permissionEntity = Permission.from(request);
             permissionEntity = permissionRepository.save(permissionEntity);
+            permissionDictionaryService.invalidate(tenant);
             PermissionDTO.Record response = PermissionDTO.Record.from(permissionEntity);
 
             log.info("Permission {} registered successfully with id {}", permissionEntity.getName(), permissionEntity.getId());
@@ -109,5 +118,21 @@ public class PermissionService{
             throw new ClientException(e.getMessage());
         }
     }
-}
 
+    /**
+     * Recomputes the current tenant's auth_effective_permission table, which triggers otherwise keep up to date
+     */
+    public int rebuildEffectivePermissions() throws AuthorizationException {
+        String tenant = TenantContext.getCurrentTenant();
+        log.info("Rebuilding effective permissions for Tenant: {}", tenant);
+        try {
+            int rows = permissionRepository.rebuildEffectivePermissions();
+            effectivePermissionCache.invalidateTenant(tenant);
+            log.info("Effective permissions rebuilt for Tenant: {}; {} row(s)", tenant, rows);
+            return rows;
+        } catch (Exception e) {
+            log.error("Exception rebuilding effective permissions for Tenant: {} in service layer. Trace:", tenant, e);
+            throw new ServerException(e.getMessage());
+        }
+    }
+}
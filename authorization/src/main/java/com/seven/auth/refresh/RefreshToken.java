@@ -0,0 +1,62 @@
+package com.seven.auth.refresh;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.ToString;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.ZonedDateTime;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * A single refresh token. Only the SHA-256 hash of the token is stored. Every rotation issues a new
+ * token in the same family, so that replaying a used token can revoke the whole chain.
+ */
+@Entity
+@Table(name = "auth_refresh_token")
+@Data
+@ToString
+public class RefreshToken {
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(nullable = false, updatable = false)
+    private UUID familyId;
+
+    @Column(nullable = false, updatable = false)
+    private String accountEmail;
+
+    @Column(nullable = false, unique = true, updatable = false)
+    private String tokenHash;
+
+    @CreationTimestamp
+    @Column(nullable = false, updatable = false)
+    private ZonedDateTime dateCreated;
+
+    @Column(nullable = false, updatable = false)
+    private ZonedDateTime dateExpires;
+
+    @Column
+    private ZonedDateTime dateUsed;
+
+    @Column
+    private ZonedDateTime dateRevoked;
+
+    public RefreshToken() {
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        RefreshToken that = (RefreshToken) o;
+        return Objects.equals(id, that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(id);
+    }
+}
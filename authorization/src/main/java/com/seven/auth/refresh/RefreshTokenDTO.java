@@ -0,0 +1,27 @@
+package com.seven.auth.refresh;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import org.springframework.validation.annotation.Validated;
+
+public class RefreshTokenDTO {
+
+    @Validated
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @Schema(name = "RefreshTokenRequest")
+    public record Request(
+            @NotBlank(message = "Required field")
+            String refreshToken
+    ) {
+    }
+
+    /**
+     * Outcome of a successful rotation: the account the family belongs to and its next refresh token
+     */
+    public record Rotation(
+            String accountEmail,
+            String refreshToken
+    ) {
+    }
+}
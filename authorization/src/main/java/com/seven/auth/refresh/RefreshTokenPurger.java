@@ -0,0 +1,102 @@
+package com.seven.auth.refresh;
+
+import com.seven.auth.util.Constants;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deletes spent refresh tokens from the public schema and every tenant schema, every "interval".
+ * <p>
+ * Expired tokens go as soon as they expire. Used and revoked ones are kept for "spent-retention" first:
+ * presenting a used token within that window still revokes its family as reuse, while afterwards it is
+ * merely unknown and refused all the same. Rows are deleted in batches of "batch-size", and a schema
+ * is purged by one instance at a time.
+ */
+@Component
+public class RefreshTokenPurger {
+    private static final Logger log = LoggerFactory.getLogger(RefreshTokenPurger.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration purgeInterval;
+    private final Duration spentRetention;
+    private final int batchSize;
+    private ScheduledExecutorService purger;
+
+    public RefreshTokenPurger(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, Environment environment) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.purgeInterval = environment.getProperty("authentication.jwt.refresh-token-purge.interval", Duration.class, Duration.ofHours(1));
+        this.spentRetention = environment.getProperty("authentication.jwt.refresh-token-purge.spent-retention", Duration.class, Duration.ofDays(1));
+        this.batchSize = environment.getProperty("authentication.jwt.refresh-token-purge.batch-size", Integer.class, 5_000);
+    }
+
+    @PostConstruct
+    public void startPurge() {
+        purger = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "refresh-token-purge");
+            thread.setDaemon(true);
+            return thread;
+        });
+        purger.scheduleWithFixedDelay(this::purge, purgeInterval.toMillis(), purgeInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stopPurge() {
+        if (purger != null) purger.shutdownNow();
+    }
+
+    private void purge() {
+        List<String> schemas = new ArrayList<>();
+        schemas.add(Constants.PUBLIC_SCHEMA);
+        try {
+            schemas.addAll(jdbcTemplate.queryForList("SELECT schema_name FROM public.auth_application WHERE schema_name <> ?", String.class, Constants.PUBLIC_SCHEMA));
+        } catch (Exception e) {
+            log.error("Unable to list tenant schemas for refresh token purge: {}", e.getMessage());
+        }
+        for (String schema : schemas) {
+            if (Thread.currentThread().isInterrupted()) return;
+            try {
+                int purged = purge(schema);
+                if (purged > 0) log.info("Purged {} spent refresh token(s) in Tenant: {}", purged, schema);
+            } catch (Exception e) {
+                log.error("Unable to purge refresh tokens in Tenant: {}. Message: {}", schema, e.getMessage());
+            }
+        }
+    }
+
+    private int purge(String schema) {
+        int total = 0;
+        int purged;
+        do {
+            purged = transactionTemplate.execute(status -> {
+                //Another instance purging this schema already; leave it to them
+                Boolean locked = jdbcTemplate.queryForObject("SELECT pg_try_advisory_xact_lock(hashtext(?))", Boolean.class, "auth_refresh_token_purge:" + schema);
+                if (!Boolean.TRUE.equals(locked)) return 0;
+                return jdbcTemplate.update("""
+                                DELETE FROM "%1$s".auth_refresh_token WHERE id IN (
+                                    SELECT id FROM "%1$s".auth_refresh_token
+                                    WHERE date_expires < CURRENT_TIMESTAMP
+                                       OR date_used < CURRENT_TIMESTAMP - ? * INTERVAL '1 millisecond'
+                                       OR date_revoked < CURRENT_TIMESTAMP - ? * INTERVAL '1 millisecond'
+                                    LIMIT ?)""".formatted(schema),
+                        spentRetention.toMillis(), spentRetention.toMillis(), batchSize);
+            });
+            total += purged;
+        } while (purged == batchSize && !Thread.currentThread().isInterrupted());
+        return total;
+    }
+}
@@ -0,0 +1,27 @@
+package com.seven.auth.refresh;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.ZonedDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, UUID> {
+    Optional<RefreshToken> findByTokenHash(String tokenHash);
+
+    /**
+     * Marks the token used if, and only if, it is still live; concurrent rotations of one token see exactly one winner
+     */
+    @Modifying
+    @Query("UPDATE RefreshToken r SET r.dateUsed = :now WHERE r.id = :id AND r.dateUsed IS NULL AND r.dateRevoked IS NULL")
+    int markUsed(@Param("id") UUID id, @Param("now") ZonedDateTime now);
+
+    @Modifying
+    @Query("UPDATE RefreshToken r SET r.dateRevoked = :now WHERE r.familyId = :familyId AND r.dateRevoked IS NULL")
+    int revokeFamily(@Param("familyId") UUID familyId, @Param("now") ZonedDateTime now);
+}
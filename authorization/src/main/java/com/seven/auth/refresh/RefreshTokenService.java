@@ -0,0 +1,128 @@
+package com.seven.auth.refresh;
+
+import com.seven.auth.config.threadlocal.TenantContext;
+import com.seven.auth.exception.AuthorizationException;
+import com.seven.auth.exception.ClientException;
+import com.seven.auth.exception.ForbiddenException;
+import com.seven.auth.util.ObjectPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.UUID;
+
+/**
+ * Issues, rotates and revokes refresh tokens in the current tenant's schema.
+ * <p>
+ * Tokens are 256-bit random strings handed to the client once; only their SHA-256 hash is persisted.
+ * Each use rotates the token: the presented one is marked used and a successor is issued in the same
+ * family. Presenting a used or revoked token is treated as theft and revokes the entire family.
+ */
+@Service
+public class RefreshTokenService {
+    private final Logger log = LoggerFactory.getLogger(getClass());
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final ObjectPool<MessageDigest> SHA_256 = new ObjectPool<>(RefreshTokenService::sha256);
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final Duration ttl;
+
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository, Environment environment) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.ttl = environment.getProperty("authentication.jwt.refresh-token-ttl", Duration.class, Duration.ofDays(14));
+    }
+
+    /**
+     * Starts a new token family for the account, e.g. on login or registration
+     */
+    @Transactional
+    public String issue(String accountEmail) throws AuthorizationException {
+        try {
+            return issue(accountEmail, UUID.randomUUID());
+        } catch (Exception e) {
+            log.error("Unable to issue refresh token for {} in Tenant: {}. Message: {}", accountEmail, TenantContext.getCurrentTenant(), e.getMessage());
+            throw new ClientException(e.getMessage());
+        }
+    }
+
+    /**
+     * Exchanges a live refresh token for its successor. Reuse of a spent token revokes its family;
+     * the revocation is committed even though the caller receives a ForbiddenException.
+     */
+    @Transactional(noRollbackFor = AuthorizationException.class)
+    public RefreshTokenDTO.Rotation rotate(String token) throws AuthorizationException {
+        String tenant = TenantContext.getCurrentTenant();
+        RefreshToken refreshToken = refreshTokenRepository.findByTokenHash(hash(token)).orElseThrow(() -> {
+            log.warn("Unknown refresh token presented in Tenant: {}", tenant);
+            return new ForbiddenException("Invalid refresh token");
+        });
+
+        ZonedDateTime now = ZonedDateTime.now();
+        if (refreshToken.getDateExpires().isBefore(now)) {
+            log.warn("Expired refresh token presented for {} in Tenant: {}", refreshToken.getAccountEmail(), tenant);
+            throw new ForbiddenException("Refresh token expired");
+        }
+        if (refreshTokenRepository.markUsed(refreshToken.getId(), now) == 0) {
+            int revoked = refreshTokenRepository.revokeFamily(refreshToken.getFamilyId(), now);
+            log.warn("Refresh token reuse detected for {} in Tenant: {}; revoked {} token(s) of family {}",
+                    refreshToken.getAccountEmail(), tenant, revoked, refreshToken.getFamilyId());
+            throw new ForbiddenException("Invalid refresh token");
+        }
+
+        String successor = issue(refreshToken.getAccountEmail(), refreshToken.getFamilyId());
+        log.info("Refresh token rotated for {} in Tenant: {}", refreshToken.getAccountEmail(), tenant);
+        return new RefreshTokenDTO.Rotation(refreshToken.getAccountEmail(), successor);
+    }
+
+    /**
+     * Revokes the family of the given token, e.g. on logout
+     */
+    @Transactional
+    public void revoke(String token) throws AuthorizationException {
+        RefreshToken refreshToken = refreshTokenRepository.findByTokenHash(hash(token))
+                .orElseThrow(() -> new ForbiddenException("Invalid refresh token"));
+        refreshTokenRepository.revokeFamily(refreshToken.getFamilyId(), ZonedDateTime.now());
+        log.info("Refresh token family {} revoked in Tenant: {}", refreshToken.getFamilyId(), TenantContext.getCurrentTenant());
+    }
+
+    private String issue(String accountEmail, UUID familyId) {
+        byte[] bytes = new byte[32];
+        RANDOM.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        RefreshToken refreshToken = new RefreshToken();
+        refreshToken.setFamilyId(familyId);
+        refreshToken.setAccountEmail(accountEmail);
+        refreshToken.setTokenHash(hash(token));
+        refreshToken.setDateExpires(ZonedDateTime.now().plus(ttl));
+        refreshTokenRepository.save(refreshToken);
+        return token;
+    }
+
+    private static String hash(String token) {
+        MessageDigest digest = SHA_256.borrow();
+        try {
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } finally {
+            SHA_256.release(digest);
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -5,6 +5,7 @@ import com.seven.auth.exception.AuthorizationException;
 import com.seven.auth.exception.ClientException;
 import com.seven.auth.exception.ConflictException;
 import com.seven.auth.exception.NotFoundException;
+import com.seven.auth.permission.EffectivePermissionCache;
 import com.seven.auth.util.Pagination;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -22,9 +23,11 @@ public class RoleService{
     private final Logger log = LoggerFactory.getLogger(getClass());
 
     private final RoleRepository roleRepository;
+    private final EffectivePermissionCache effectivePermissionCache;
 
-    public RoleService(RoleRepository roleRepository) {
+    public RoleService(RoleRepository roleRepository, EffectivePermissionCache effectivePermissionCache) {
         this.roleRepository = roleRepository;
+        this.effectivePermissionCache = effectivePermissionCache;
     }
 
     public Page<RoleDTO.Record> getAll(Pagination pagination, RoleDTO.Filter filter) throws AuthorizationException {
@@ -75,6 +78,8 @@ public class RoleService{
         log.info("Deleting Role: {} for Tenant: {}", id, tenant);
         try {
             roleRepository.deleteById(id);
+            //Grants and assignments of the role go with it
+            effectivePermissionCache.invalidateTenant(tenant);
             log.info("Role deleted successfully");
         } catch (EmptyResultDataAccessException e) {
             log.error("Role {} not found.", id);
@@ -0,0 +1,14 @@
+SET SCHEMA 'public';
+
+CREATE TABLE auth_refresh_token(
+    id UUID PRIMARY KEY,
+    family_id UUID NOT NULL,
+    account_email VARCHAR(255) NOT NULL REFERENCES auth_account(email) ON DELETE CASCADE ON UPDATE CASCADE,
+    token_hash VARCHAR(64) NOT NULL UNIQUE,
+    date_created TIMESTAMP WITH TIME ZONE NOT NULL,
+    date_expires TIMESTAMP WITH TIME ZONE NOT NULL,
+    date_used TIMESTAMP WITH TIME ZONE,
+    date_revoked TIMESTAMP WITH TIME ZONE
+);
+CREATE INDEX auth_refresh_token_family_idx ON auth_refresh_token(family_id);
+CREATE INDEX auth_refresh_token_expires_idx ON auth_refresh_token(date_expires);
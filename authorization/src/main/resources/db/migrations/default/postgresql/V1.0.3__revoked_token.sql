@@ -0,0 +1,12 @@
+SET SCHEMA 'public';
+
+-- Revoked access tokens of every tenant; seq lets verifiers sync incrementally
+CREATE TABLE auth_revoked_token(
+    seq BIGSERIAL PRIMARY KEY,
+    jti VARCHAR(64) NOT NULL UNIQUE,
+    subject VARCHAR(255),
+    tenant VARCHAR(63),
+    date_expires TIMESTAMP WITH TIME ZONE NOT NULL,
+    date_revoked TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+CREATE INDEX auth_revoked_token_expires_idx ON auth_revoked_token(date_expires);
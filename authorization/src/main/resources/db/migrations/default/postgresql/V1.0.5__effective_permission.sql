@@ -0,0 +1,97 @@
+SET SCHEMA 'public';
+
+-- Effective permissions of each account, maintained by the triggers below so that resolving an
+-- account's permissions is a single index scan instead of an assignment -> grant -> permission join
+CREATE TABLE auth_effective_permission(
+    account_email VARCHAR(255) NOT NULL REFERENCES auth_account(email) ON DELETE CASCADE ON UPDATE CASCADE,
+    permission_id UUID NOT NULL REFERENCES auth_permission(id) ON DELETE CASCADE,
+    permission_name VARCHAR(100) NOT NULL,
+    PRIMARY KEY(account_email, permission_id)
+);
+CREATE INDEX auth_effective_permission_permission_idx ON auth_effective_permission(permission_id);
+
+-- Functions pin the schema they were created in, so they resolve this schema's tables even when
+-- fired from a session whose search_path points elsewhere
+
+-- Recomputes every account from scratch; for repair
+CREATE FUNCTION auth_rebuild_effective_permissions() RETURNS INTEGER
+LANGUAGE plpgsql SET search_path FROM CURRENT AS $$
+DECLARE
+    rebuilt INTEGER;
+BEGIN
+    LOCK TABLE auth_effective_permission IN EXCLUSIVE MODE;
+    DELETE FROM auth_effective_permission;
+    INSERT INTO auth_effective_permission(account_email, permission_id, permission_name)
+    SELECT DISTINCT a.account_email, p.id, p.name
+    FROM auth_assignment a
+    JOIN auth_grant g ON g.role_id = a.role_id
+    JOIN auth_permission p ON p.id = g.permission_id;
+    GET DIAGNOSTICS rebuilt = ROW_COUNT;
+    RETURN rebuilt;
+END;
+$$;
+
+-- Deletes only drop a permission once no other assignment/grant path still confers it,
+-- which also keeps the table right whatever order cascaded deletes fire in
+CREATE FUNCTION auth_assignment_effective_permission() RETURNS TRIGGER
+LANGUAGE plpgsql SET search_path FROM CURRENT AS $$
+BEGIN
+    IF TG_OP IN ('DELETE', 'UPDATE') THEN
+        DELETE FROM auth_effective_permission e
+        WHERE e.account_email = OLD.account_email
+          AND NOT EXISTS (SELECT 1 FROM auth_assignment a JOIN auth_grant g ON g.role_id = a.role_id
+                          WHERE a.account_email = OLD.account_email AND g.permission_id = e.permission_id);
+    END IF;
+    IF TG_OP IN ('INSERT', 'UPDATE') THEN
+        INSERT INTO auth_effective_permission(account_email, permission_id, permission_name)
+        SELECT NEW.account_email, p.id, p.name
+        FROM auth_grant g JOIN auth_permission p ON p.id = g.permission_id
+        WHERE g.role_id = NEW.role_id
+        ON CONFLICT DO NOTHING;
+    END IF;
+    RETURN NULL;
+END;
+$$;
+
+CREATE FUNCTION auth_grant_effective_permission() RETURNS TRIGGER
+LANGUAGE plpgsql SET search_path FROM CURRENT AS $$
+BEGIN
+    IF TG_OP IN ('DELETE', 'UPDATE') THEN
+        DELETE FROM auth_effective_permission e
+        WHERE e.permission_id = OLD.permission_id
+          AND e.account_email IN (SELECT account_email FROM auth_assignment WHERE role_id = OLD.role_id)
+          AND NOT EXISTS (SELECT 1 FROM auth_assignment a JOIN auth_grant g ON g.role_id = a.role_id
+                          WHERE a.account_email = e.account_email AND g.permission_id = OLD.permission_id);
+    END IF;
+    IF TG_OP IN ('INSERT', 'UPDATE') THEN
+        INSERT INTO auth_effective_permission(account_email, permission_id, permission_name)
+        SELECT a.account_email, p.id, p.name
+        FROM auth_assignment a JOIN auth_permission p ON p.id = NEW.permission_id
+        WHERE a.role_id = NEW.role_id
+        ON CONFLICT DO NOTHING;
+    END IF;
+    RETURN NULL;
+END;
+$$;
+
+CREATE FUNCTION auth_permission_effective_permission() RETURNS TRIGGER
+LANGUAGE plpgsql SET search_path FROM CURRENT AS $$
+BEGIN
+    UPDATE auth_effective_permission SET permission_name = NEW.name WHERE permission_id = NEW.id;
+    RETURN NULL;
+END;
+$$;
+
+CREATE TRIGGER auth_assignment_effective_permission_trg
+    AFTER INSERT OR DELETE OR UPDATE OF account_email, role_id ON auth_assignment
+    FOR EACH ROW EXECUTE FUNCTION auth_assignment_effective_permission();
+
+CREATE TRIGGER auth_grant_effective_permission_trg
+    AFTER INSERT OR DELETE OR UPDATE OF role_id, permission_id ON auth_grant
+    FOR EACH ROW EXECUTE FUNCTION auth_grant_effective_permission();
+
+CREATE TRIGGER auth_permission_effective_permission_trg
+    AFTER UPDATE OF name ON auth_permission
+    FOR EACH ROW WHEN (OLD.name IS DISTINCT FROM NEW.name) EXECUTE FUNCTION auth_permission_effective_permission();
+
+SELECT auth_rebuild_effective_permissions();
@@ -0,0 +1,24 @@
+SET SCHEMA 'public';
+
+-- Asynchronous tenant provisioning and drop jobs, claimed by workers with FOR UPDATE SKIP LOCKED
+CREATE TABLE auth_tenant_job(
+    id UUID PRIMARY KEY,
+    type VARCHAR(16) NOT NULL,
+    status VARCHAR(16) NOT NULL,
+    schema_name VARCHAR(63) NOT NULL,
+    application_id UUID,
+    idempotency_key VARCHAR(255) UNIQUE,
+    payload JSONB,
+    requested_by JSONB,
+    step VARCHAR(64),
+    attempts INT NOT NULL DEFAULT 0,
+    max_attempts INT NOT NULL,
+    error TEXT,
+    run_after TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    date_created TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    date_updated TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    date_completed TIMESTAMP WITH TIME ZONE
+);
+-- At most one unfinished job per schema, so a provision and a drop never race on it
+CREATE UNIQUE INDEX auth_tenant_job_active_schema_idx ON auth_tenant_job(schema_name) WHERE status IN ('QUEUED', 'RUNNING');
+CREATE INDEX auth_tenant_job_queued_idx ON auth_tenant_job(run_after) WHERE status = 'QUEUED';
@@ -0,0 +1,15 @@
+SET SCHEMA 'public';
+
+-- Signing keys added, promoted or retired at runtime, shared by every instance. Holds private key material:
+-- restrict access to this table accordingly. Retired keys are kept, without material, so that a key
+-- retired from configuration stays retired
+CREATE TABLE auth_signing_key(
+    kid VARCHAR(64) PRIMARY KEY,
+    algorithm VARCHAR(8) NOT NULL,
+    private_key TEXT,
+    public_key TEXT,
+    status VARCHAR(16) NOT NULL,
+    date_created TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+-- At most one key signs
+CREATE UNIQUE INDEX auth_signing_key_active_idx ON auth_signing_key(status) WHERE status = 'ACTIVE';
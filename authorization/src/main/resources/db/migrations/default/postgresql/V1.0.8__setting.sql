@@ -0,0 +1,8 @@
+SET SCHEMA 'public';
+
+-- Values every instance must agree on, such as the calibrated BCrypt cost
+CREATE TABLE auth_setting(
+    name VARCHAR(63) PRIMARY KEY,
+    value VARCHAR(255) NOT NULL,
+    date_created TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
@@ -0,0 +1,86 @@
+SET SCHEMA 'public';
+
+-- The triggers of V1.0.5 decide what to add or drop from what their statements can see, and under READ
+-- COMMITTED a concurrent transaction's uncommitted assignment or grant is invisible to them: two deletes
+-- could each keep a permission for the other's path, and a grant and an assignment inserted together could
+-- each miss the other's row. Every change to effective permissions now takes this schema's advisory lock
+-- first. A transaction waiting on it runs its checks afterwards, with fresh snapshots that include
+-- whatever the holder committed, so the last one to run settles the outcome.
+CREATE OR REPLACE FUNCTION auth_lock_effective_permissions() RETURNS VOID
+LANGUAGE sql SET search_path FROM CURRENT AS $$
+    SELECT pg_advisory_xact_lock(hashtext('auth_effective_permission:' || current_schema()));
+$$;
+
+CREATE OR REPLACE FUNCTION auth_rebuild_effective_permissions() RETURNS INTEGER
+LANGUAGE plpgsql SET search_path FROM CURRENT AS $$
+DECLARE
+    rebuilt INTEGER;
+BEGIN
+    PERFORM auth_lock_effective_permissions();
+    LOCK TABLE auth_effective_permission IN EXCLUSIVE MODE;
+    DELETE FROM auth_effective_permission;
+    INSERT INTO auth_effective_permission(account_email, permission_id, permission_name)
+    SELECT DISTINCT a.account_email, p.id, p.name
+    FROM auth_assignment a
+    JOIN auth_grant g ON g.role_id = a.role_id
+    JOIN auth_permission p ON p.id = g.permission_id;
+    GET DIAGNOSTICS rebuilt = ROW_COUNT;
+    RETURN rebuilt;
+END;
+$$;
+
+CREATE OR REPLACE FUNCTION auth_assignment_effective_permission() RETURNS TRIGGER
+LANGUAGE plpgsql SET search_path FROM CURRENT AS $$
+BEGIN
+    PERFORM auth_lock_effective_permissions();
+    IF TG_OP IN ('DELETE', 'UPDATE') THEN
+        DELETE FROM auth_effective_permission e
+        WHERE e.account_email = OLD.account_email
+          AND NOT EXISTS (SELECT 1 FROM auth_assignment a JOIN auth_grant g ON g.role_id = a.role_id
+                          WHERE a.account_email = OLD.account_email AND g.permission_id = e.permission_id);
+    END IF;
+    IF TG_OP IN ('INSERT', 'UPDATE') THEN
+        INSERT INTO auth_effective_permission(account_email, permission_id, permission_name)
+        SELECT NEW.account_email, p.id, p.name
+        FROM auth_grant g JOIN auth_permission p ON p.id = g.permission_id
+        WHERE g.role_id = NEW.role_id
+        ON CONFLICT DO NOTHING;
+    END IF;
+    RETURN NULL;
+END;
+$$;
+
+CREATE OR REPLACE FUNCTION auth_grant_effective_permission() RETURNS TRIGGER
+LANGUAGE plpgsql SET search_path FROM CURRENT AS $$
+BEGIN
+    PERFORM auth_lock_effective_permissions();
+    IF TG_OP IN ('DELETE', 'UPDATE') THEN
+        DELETE FROM auth_effective_permission e
+        WHERE e.permission_id = OLD.permission_id
+          AND e.account_email IN (SELECT account_email FROM auth_assignment WHERE role_id = OLD.role_id)
+          AND NOT EXISTS (SELECT 1 FROM auth_assignment a JOIN auth_grant g ON g.role_id = a.role_id
+                          WHERE a.account_email = e.account_email AND g.permission_id = OLD.permission_id);
+    END IF;
+    IF TG_OP IN ('INSERT', 'UPDATE') THEN
+        INSERT INTO auth_effective_permission(account_email, permission_id, permission_name)
+        SELECT a.account_email, p.id, p.name
+        FROM auth_assignment a JOIN auth_permission p ON p.id = NEW.permission_id
+        WHERE a.role_id = NEW.role_id
+        ON CONFLICT DO NOTHING;
+    END IF;
+    RETURN NULL;
+END;
+$$;
+
+-- A rename racing an insert of the old name is ordered the same way
+CREATE OR REPLACE FUNCTION auth_permission_effective_permission() RETURNS TRIGGER
+LANGUAGE plpgsql SET search_path FROM CURRENT AS $$
+BEGIN
+    PERFORM auth_lock_effective_permissions();
+    UPDATE auth_effective_permission SET permission_name = NEW.name WHERE permission_id = NEW.id;
+    RETURN NULL;
+END;
+$$;
+
+-- Repairs anything the unserialized triggers may already have left behind
+SELECT auth_rebuild_effective_permissions();
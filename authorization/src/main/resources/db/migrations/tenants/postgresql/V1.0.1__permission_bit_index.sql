@@ -0,0 +1,15 @@
+CREATE SEQUENCE auth_permission_bit_index_seq MINVALUE 0 START WITH 0;
+
+-- Stable, never reused bit indices for compact permission bitmaps in access tokens
+ALTER TABLE auth_permission ADD COLUMN bit_index INTEGER;
+
+UPDATE auth_permission p SET bit_index = ordered.idx
+FROM (SELECT id, row_number() OVER (ORDER BY date_created, name) - 1 AS idx FROM auth_permission) ordered
+WHERE p.id = ordered.id;
+
+SELECT setval('auth_permission_bit_index_seq', COALESCE((SELECT MAX(bit_index) + 1 FROM auth_permission), 0), false);
+
+ALTER TABLE auth_permission ALTER COLUMN bit_index SET DEFAULT nextval('auth_permission_bit_index_seq');
+ALTER TABLE auth_permission ALTER COLUMN bit_index SET NOT NULL;
+ALTER TABLE auth_permission ADD CONSTRAINT auth_permission_bit_index_key UNIQUE(bit_index);
+ALTER SEQUENCE auth_permission_bit_index_seq OWNED BY auth_permission.bit_index;
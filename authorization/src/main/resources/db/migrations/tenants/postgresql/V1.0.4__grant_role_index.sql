@@ -0,0 +1,2 @@
+-- Lets the single login query walk assignment -> grant -> permission without scanning auth_grant
+CREATE INDEX auth_grant_role_idx ON auth_grant(role_id);
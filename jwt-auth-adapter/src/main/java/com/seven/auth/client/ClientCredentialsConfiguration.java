@@ -0,0 +1,22 @@
+package com.seven.auth.client;
+
+import feign.auth.BasicAuthRequestInterceptor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+
+import java.util.Objects;
+
+/**
+ * Authenticates calls to jwt-auth endpoints reserved to service clients with this service's
+ * "authentication.jwt.client-id" and "authentication.jwt.client-secret".
+ * Deliberately not a @Configuration, so that it applies only to the clients that name it.
+ */
+public class ClientCredentialsConfiguration {
+
+    @Bean
+    public BasicAuthRequestInterceptor clientCredentialsInterceptor(Environment environment) {
+        return new BasicAuthRequestInterceptor(
+                Objects.requireNonNull(environment.getProperty("authentication.jwt.client-id"), "authentication.jwt.client-id is required"),
+                Objects.requireNonNull(environment.getProperty("authentication.jwt.client-secret"), "authentication.jwt.client-secret is required"));
+    }
+}
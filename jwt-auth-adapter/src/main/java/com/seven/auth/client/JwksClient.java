@@ -0,0 +1,13 @@
+package com.seven.auth.client;
+
+import com.seven.auth.dto.jwt.JwkSet;
+import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+
+@FeignClient(name = "jwks-client", url = "${authentication.jwt.base-url}")
+public interface JwksClient {
+
+    @GetMapping(value = "/.well-known/jwks.json", produces = MediaType.APPLICATION_JSON_VALUE)
+    JwkSet getJwkSet();
+}
@@ -0,0 +1,14 @@
+package com.seven.auth.client;
+
+import com.seven.auth.dto.permission.PermissionDictionary;
+import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+
+@FeignClient(name = "permission-dictionary-client", url = "${authentication.jwt.base-url}", configuration = ClientCredentialsConfiguration.class)
+public interface PermissionDictionaryClient {
+
+    @GetMapping(value = "/.well-known/permissions/{tenant}", produces = MediaType.APPLICATION_JSON_VALUE)
+    PermissionDictionary getDictionary(@PathVariable("tenant") String tenant);
+}
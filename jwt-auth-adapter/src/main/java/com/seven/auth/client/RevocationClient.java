@@ -0,0 +1,14 @@
+package com.seven.auth.client;
+
+import com.seven.auth.dto.jwt.RevokedTokens;
+import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+
+@FeignClient(name = "revocation-client", url = "${authentication.jwt.base-url}", configuration = ClientCredentialsConfiguration.class)
+public interface RevocationClient {
+
+    @GetMapping(value = "/.well-known/revocations", produces = MediaType.APPLICATION_JSON_VALUE)
+    RevokedTokens getRevocations(@RequestParam("since") long since);
+}
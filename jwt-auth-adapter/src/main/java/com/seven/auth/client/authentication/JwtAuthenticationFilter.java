@@ -1,7 +1,7 @@
 package com.seven.auth.client.authentication;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.seven.auth.dto.account.IAccount;
+import com.seven.auth.util.GrantedPermissions;
 import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -18,17 +18,18 @@ import org.springframework.web.server.ResponseStatusException;
 
 import java.io.IOException;
 import java.util.List;
-import java.util.Set;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private final JwtService jwtService;
-    private final ObjectMapper objectMapper;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final RevocationSync revocationSync;
     private final Logger log = LoggerFactory.getLogger(getClass());
 
-    public JwtAuthenticationFilter(JwtService jwtService, ObjectMapper objectMapper) {
+    public JwtAuthenticationFilter(JwtService jwtService, VerifiedTokenCache verifiedTokenCache, RevocationSync revocationSync) {
         this.jwtService = jwtService;
-        this.objectMapper = objectMapper;
+        this.verifiedTokenCache = verifiedTokenCache;
+        this.revocationSync = revocationSync;
     }
 
     @Override
@@ -38,25 +39,17 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                 String token = request.getHeader("Authorization");
                 if (token != null && token.startsWith("Bearer ")) {
                     token = token.substring(7);
-                    Claims claims = jwtService.extractClaims(token);
-                    String email = claims.getSubject();
+                    VerifiedTokenCache.Entry entry = verifiedTokenCache.get(token);
+                    if (entry == null) entry = verify(token);
 
-                    if (email != null) {
-                        if (jwtService.isTokenValid(claims)) {
-                            //Extract permissions
-                            Set<String> permissions = (Set<String>)claims.get("permissions");
+                    if (entry != null && !revocationSync.isRevoked(entry.jti())) {
+                        request.setAttribute("subject", entry.subject());
+                        request.setAttribute("permissions", entry.permissions());
 
-                            //Extract account record
-                            IAccount.Record accountRecord = objectMapper.convertValue(claims.get("principal"), IAccount.Record.class);
+                        UsernamePasswordAuthenticationToken authenticationToken =
+                                new UsernamePasswordAuthenticationToken(entry.principal(), null, List.of());
 
-                            request.setAttribute("subject", email);
-                            request.setAttribute("permissions", permissions);
-
-                            UsernamePasswordAuthenticationToken authenticationToken =
-                                    new UsernamePasswordAuthenticationToken(accountRecord, null, List.of());
-
-                            SecurityContextHolder.getContext().setAuthentication(authenticationToken);
-                        }
+                        SecurityContextHolder.getContext().setAuthentication(authenticationToken);
                     }
                 }
             }
@@ -70,4 +63,20 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             SecurityContextHolder.getContext().setAuthentication(null);
         }
     }
+
+    private VerifiedTokenCache.Entry verify(String token) {
+        Claims claims = jwtService.extractClaims(token);
+        String email = claims.getSubject();
+        if (email == null || !jwtService.isTokenValid(claims)) return null;
+
+        //Extract permissions
+        GrantedPermissions permissions = jwtService.grantedPermissions(claims);
+
+        //Extract account record
+        IAccount.Record accountRecord = claims.get("principal", IAccount.Principal.class);
+
+        VerifiedTokenCache.Entry entry = new VerifiedTokenCache.Entry(claims.getId(), email, accountRecord, permissions, claims.getExpiration().getTime());
+        verifiedTokenCache.put(token, entry);
+        return entry;
+    }
 }
@@ -1,42 +1,158 @@
 package com.seven.auth.client.authentication;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.seven.auth.client.JwksClient;
+import com.seven.auth.client.PermissionDictionaryClient;
+import com.seven.auth.dto.account.IAccount;
+import com.seven.auth.dto.jwt.JwkSet;
+import com.seven.auth.dto.permission.PermissionDictionary;
+import com.seven.auth.util.ClaimsDeserializer;
+import com.seven.auth.util.GrantedPermissions;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
 import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
 import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Service;
 import org.springframework.web.context.annotation.ApplicationScope;
 
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.time.Duration;
 import java.util.Date;
-import java.util.Objects;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+/**
+ * Verifies tokens issued by jwt-auth.
+ * <p>
+ * With "authentication.jwt.algorithm" set to HS256 (the default) tokens are verified by kid with the shared
+ * secrets configured as on jwt-auth: "authentication.jwt.signing-key" for the "default" kid and tokens
+ * without one, and "authentication.jwt.keys" as {kid, secret} pairs. With ES256 the public keys are fetched from jwt-auth's JWK set and
+ * kept in memory by kid. The set is refreshed on a background thread, periodically and whenever a token
+ * names a kid that is not known yet, so a refresh never blocks the request path.
+ * <p>
+ * Tokens minted with compact permissions ("pbits"/"pver") are decoded against the tenant's permission
+ * dictionary. Dictionaries of the tenants listed in "authentication.jwt.tenants" are fetched at startup, and
+ * every known dictionary is refreshed each "authentication.jwt.dictionary-refresh-interval", all on a
+ * background thread. A token for a tenant not known yet, or referencing a newer version, queues a fetch that
+ * concurrent requests share and waits for it at most "authentication.jwt.dictionary-wait".
+ */
 @Service
 @ApplicationScope
 public class JwtService {
     private static final Logger log = LoggerFactory.getLogger(JwtService.class);
-    private final Environment environment;
+    private static final Duration MIN_REFRESH_SPACING = Duration.ofSeconds(30);
+    private static final String DEFAULT_KID = "default";
 
-    public JwtService(Environment environment) {
-        this.environment = environment;
+    private final SignatureAlgorithm algorithm;
+    private final Map<String, Key> sharedKeys;
+    private final ObjectProvider<JwksClient> jwksClient;
+    private final Duration refreshInterval;
+    private final JwtParser parser;
+    private final ObjectProvider<PermissionDictionaryClient> permissionDictionaryClient;
+    private final ConcurrentMap<String, PermissionDictionary> dictionaries = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, CompletableFuture<PermissionDictionary>> dictionaryFetches = new ConcurrentHashMap<>();
+    private final List<String> prefetchTenants;
+    private final Duration dictionaryRefreshInterval;
+    private final Duration dictionaryWait;
+    private ScheduledExecutorService dictionaryRefresher;
+
+    private volatile Map<String, Key> publicKeys = Map.of();
+    private volatile long lastRefreshStarted;
+    private final AtomicBoolean refreshInFlight = new AtomicBoolean();
+    private ScheduledExecutorService refresher;
+
+    public JwtService(Environment environment, ObjectProvider<JwksClient> jwksClient, ObjectProvider<PermissionDictionaryClient> permissionDictionaryClient,
+                      ObjectMapper objectMapper) {
+        this.permissionDictionaryClient = permissionDictionaryClient;
+        this.algorithm = SignatureAlgorithm.forName(environment.getProperty("authentication.jwt.algorithm", "HS256"));
+        this.jwksClient = jwksClient;
+        this.refreshInterval = environment.getProperty("authentication.jwt.jwks-refresh-interval", Duration.class, Duration.ofMinutes(10));
+        this.prefetchTenants = List.of(environment.getProperty("authentication.jwt.tenants", String[].class, new String[0]));
+        this.dictionaryRefreshInterval = environment.getProperty("authentication.jwt.dictionary-refresh-interval", Duration.class, Duration.ofMinutes(5));
+        this.dictionaryWait = environment.getProperty("authentication.jwt.dictionary-wait", Duration.class, Duration.ofSeconds(2));
+        this.sharedKeys = algorithm == SignatureAlgorithm.HS256 ? sharedKeys(environment) : Map.of();
+        this.parser = Jwts.parserBuilder()
+                .setSigningKeyResolver(new KidResolver())
+                .deserializeJsonWith(new ClaimsDeserializer(objectMapper, Map.of(
+                        "principal", objectMapper.constructType(IAccount.Principal.class),
+                        "permissions", objectMapper.getTypeFactory().constructCollectionType(List.class, String.class)
+                )))
+                .build();
+    }
+
+    public record SharedKey(String kid, String secret) {
+    }
+
+    private static Map<String, Key> sharedKeys(Environment environment) {
+        Map<String, Key> keys = new HashMap<>();
+        String secret = environment.getProperty("authentication.jwt.signing-key");
+        if (secret != null && !secret.isBlank()) keys.put(DEFAULT_KID, Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8)));
+        for (SharedKey key : Binder.get(environment).bind("authentication.jwt.keys", Bindable.listOf(SharedKey.class)).orElse(List.of())) {
+            //ES256 entries carry no secret and are verified through the JWK set
+            if (key.kid() != null && key.secret() != null)
+                keys.put(key.kid(), Keys.hmacShaKeyFor(key.secret().getBytes(StandardCharsets.UTF_8)));
+        }
+        if (keys.isEmpty())
+            throw new IllegalStateException("HS256 needs authentication.jwt.signing-key or secrets under authentication.jwt.keys");
+        return Map.copyOf(keys);
+    }
+
+    @PostConstruct
+    public void startRefresher() {
+        dictionaryRefresher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "permission-dictionary-refresher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        dictionaryRefresher.scheduleWithFixedDelay(this::refreshDictionaries, 0, dictionaryRefreshInterval.toMillis(), TimeUnit.MILLISECONDS);
+
+        if (algorithm == SignatureAlgorithm.HS256) return;
+
+        refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "jwks-refresher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        refresher.scheduleWithFixedDelay(this::refreshKeys, 0, refreshInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stopRefresher() {
+        if (refresher != null) refresher.shutdownNow();
+        if (dictionaryRefresher != null) dictionaryRefresher.shutdownNow();
     }
 
     public Claims extractClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
+        return parser
                 .parseClaimsJws(token)
                 .getBody();
     }
 
-    private Key getSigningKey() {
-        byte[] bytes = Objects.requireNonNull(environment.getProperty("authentication.jwt.signing-key")).getBytes(StandardCharsets.UTF_8);
-        return Keys.hmacShaKeyFor(bytes);
-    }
-
     public boolean isTokenValid(Claims claims) {
         return !isTokenExpired(claims);
     }
@@ -45,4 +161,106 @@ public class JwtService {
         return claims.getExpiration().before(new Date());
     }
 
+    public GrantedPermissions grantedPermissions(Claims claims) {
+        String bitmap = claims.get("pbits", String.class);
+        if (bitmap == null) {
+            List<String> permissions = (List<String>) claims.get("permissions");
+            return GrantedPermissions.of(permissions == null ? List.of() : permissions);
+        }
+        Integer version = claims.get("pver", Integer.class);
+        return GrantedPermissions.of(bitmap, dictionary(claims.get("tenant", String.class), version == null ? 0 : version));
+    }
+
+    private PermissionDictionary dictionary(String tenant, int minVersion) {
+        PermissionDictionary dictionary = dictionaries.get(tenant);
+        if (dictionary != null && dictionary.getVersion() >= minVersion) return dictionary;
+
+        try {
+            dictionary = fetchDictionary(tenant).get(dictionaryWait.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for the permission dictionary of tenant " + tenant);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IllegalStateException("Permission dictionary of tenant %s is not available".formatted(tenant));
+        }
+        if (dictionary.getVersion() < minVersion)
+            throw new IllegalStateException("Permission dictionary of tenant %s is behind version %d".formatted(tenant, minVersion));
+        return dictionary;
+    }
+
+    /**
+     * Queues a fetch of the tenant's dictionary, or joins the one already queued
+     */
+    private CompletableFuture<PermissionDictionary> fetchDictionary(String tenant) {
+        return dictionaryFetches.computeIfAbsent(tenant, t -> CompletableFuture
+                .supplyAsync(() -> loadDictionary(t), dictionaryRefresher)
+                .whenComplete((dictionary, e) -> dictionaryFetches.remove(t)));
+    }
+
+    private PermissionDictionary loadDictionary(String tenant) {
+        PermissionDictionary dictionary = permissionDictionaryClient.getObject().getDictionary(tenant);
+        log.info("Permission dictionary for tenant {} loaded at version {}", tenant, dictionary.getVersion());
+        //Dictionaries only grow, so a newer one replaces an older one without invalidating earlier tokens
+        return dictionaries.merge(tenant, dictionary, (a, b) -> a.getVersion() >= b.getVersion() ? a : b);
+    }
+
+    private void refreshDictionaries() {
+        Set<String> tenants = new HashSet<>(prefetchTenants);
+        tenants.addAll(dictionaries.keySet());
+        for (String tenant : tenants) {
+            try {
+                loadDictionary(tenant);
+            } catch (Exception e) {
+                //Keep decoding with the dictionary we have
+                log.error("Unable to refresh permission dictionary for tenant {}: {}", tenant, e.getMessage());
+            }
+        }
+    }
+
+    private void refreshKeys() {
+        if (!refreshInFlight.compareAndSet(false, true)) return;
+        try {
+            lastRefreshStarted = System.nanoTime();
+            JwkSet jwkSet = jwksClient.getObject().getJwkSet();
+            Map<String, Key> keys = new HashMap<>();
+            for (JwkSet.Jwk jwk : jwkSet.keys()) {
+                try {
+                    keys.put(jwk.kid(), jwk.toPublicKey());
+                } catch (Exception e) {
+                    log.warn("Skipping JWK {}: {}", jwk.kid(), e.getMessage());
+                }
+            }
+            publicKeys = Map.copyOf(keys);
+            log.info("JWK set refreshed; {} key(s) available", keys.size());
+        } catch (Exception e) {
+            //Keep verifying with the keys we already have
+            log.error("Unable to refresh JWK set: {}", e.getMessage());
+        } finally {
+            refreshInFlight.set(false);
+        }
+    }
+
+    private void requestRefresh() {
+        if (refresher == null || refreshInFlight.get()) return;
+        if (System.nanoTime() - lastRefreshStarted < MIN_REFRESH_SPACING.toNanos()) return;
+        refresher.execute(this::refreshKeys);
+    }
+
+    private class KidResolver extends SigningKeyResolverAdapter {
+        @Override
+        public Key resolveSigningKey(JwsHeader header, Claims claims) {
+            if (algorithm == SignatureAlgorithm.HS256) {
+                Key key = sharedKeys.get(header.getKeyId() == null ? DEFAULT_KID : header.getKeyId());
+                if (key == null) throw new SignatureException("Unknown signing key: " + header.getKeyId());
+                return key;
+            }
+
+            Key key = header.getKeyId() == null ? null : publicKeys.get(header.getKeyId());
+            if (key == null) {
+                requestRefresh();
+                throw new SignatureException("Unknown signing key: " + header.getKeyId());
+            }
+            return key;
+        }
+    }
 }
@@ -0,0 +1,80 @@
+package com.seven.auth.client.authentication;
+
+import com.seven.auth.client.RevocationClient;
+import com.seven.auth.dto.jwt.RevokedTokens;
+import com.seven.auth.util.RevocationIndex;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Opt-in mirror of jwt-auth's token revocations ("authentication.jwt.revocation.enabled").
+ * <p>
+ * A background thread pulls new revocations from /.well-known/revocations past the last applied
+ * sequence number and prunes expired ones, so the request path only consults the local index. The feed
+ * is reserved to service clients, so the client credentials used for permission dictionaries are required.
+ */
+@Component
+public class RevocationSync {
+    private static final Logger log = LoggerFactory.getLogger(RevocationSync.class);
+
+    private final boolean enabled;
+    private final ObjectProvider<RevocationClient> revocationClient;
+    private final RevocationIndex revocationIndex;
+    private final Duration syncInterval;
+    private ScheduledExecutorService synchronizer;
+
+    public RevocationSync(Environment environment, ObjectProvider<RevocationClient> revocationClient) {
+        this.enabled = environment.getProperty("authentication.jwt.revocation.enabled", Boolean.class, false);
+        this.revocationClient = revocationClient;
+        this.revocationIndex = new RevocationIndex(environment.getProperty("authentication.jwt.revocation.expected-size", Integer.class, 100_000));
+        this.syncInterval = environment.getProperty("authentication.jwt.revocation.sync-interval", Duration.class, Duration.ofSeconds(10));
+    }
+
+    @PostConstruct
+    public void startSync() {
+        if (!enabled) return;
+        synchronizer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "revocation-sync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        synchronizer.scheduleWithFixedDelay(this::sync, 0, syncInterval.toMillis(), TimeUnit.MILLISECONDS);
+        log.info("Token revocation sync enabled; interval: {}", syncInterval);
+    }
+
+    @PreDestroy
+    public void stopSync() {
+        if (synchronizer != null) synchronizer.shutdownNow();
+    }
+
+    public boolean isRevoked(String jti) {
+        return enabled && revocationIndex.isRevoked(jti);
+    }
+
+    private void sync() {
+        try {
+            //The settled seq may trail the page, so page on by the entries themselves
+            long cursor = revocationIndex.lastSeq();
+            RevokedTokens page;
+            do {
+                page = revocationClient.getObject().getRevocations(cursor);
+                revocationIndex.apply(page);
+                if (!page.revocations().isEmpty()) cursor = page.revocations().get(page.revocations().size() - 1).seq();
+            } while (!page.revocations().isEmpty());
+            revocationIndex.prune(System.currentTimeMillis());
+        } catch (Exception e) {
+            //Keep serving from the index we have
+            log.error("Unable to sync token revocations: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.seven.auth.client.authentication;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.seven.auth.dto.account.IAccount;
+import com.seven.auth.util.GrantedPermissions;
+import com.seven.auth.util.ObjectPool;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Opt-in cache of tokens that already passed signature and expiry checks, so that a bearer token
+ * resent on every request is verified and decoded once.
+ * <p>
+ * Entries are keyed by the SHA-256 digest of the token (raw tokens are never retained), bounded by
+ * "authentication.jwt.cache.max-size" and evicted when the token's own "exp" passes.
+ * Hit, miss and eviction counts are published as "jwt.token.cache" metrics when a MeterRegistry is present.
+ */
+@Component
+public class VerifiedTokenCache {
+    private static final Logger log = LoggerFactory.getLogger(VerifiedTokenCache.class);
+    //Shared across threads; host applications may serve requests on virtual threads
+    private static final ObjectPool<MessageDigest> SHA_256 = new ObjectPool<>(VerifiedTokenCache::sha256);
+
+    private final boolean enabled;
+    private final Cache<Digest, Entry> cache;
+
+    public record Entry(String jti, String subject, IAccount.Record principal, GrantedPermissions permissions, long expiresAtMillis) {
+    }
+
+    /**
+     * 256-bit token digest held as four longs; compact and cheap to hash and compare
+     */
+    private record Digest(long a, long b, long c, long d) {
+        static Digest of(String token) {
+            MessageDigest digest = SHA_256.borrow();
+            ByteBuffer bytes;
+            try {
+                bytes = ByteBuffer.wrap(digest.digest(token.getBytes(StandardCharsets.US_ASCII)));
+            } finally {
+                SHA_256.release(digest);
+            }
+            return new Digest(bytes.getLong(), bytes.getLong(), bytes.getLong(), bytes.getLong());
+        }
+    }
+
+    public VerifiedTokenCache(Environment environment, ObjectProvider<MeterRegistry> meterRegistry) {
+        this.enabled = environment.getProperty("authentication.jwt.cache.enabled", Boolean.class, false);
+        long maxSize = environment.getProperty("authentication.jwt.cache.max-size", Long.class, 10_000L);
+
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(enabled ? maxSize : 0)
+                .expireAfter(new ExpireAtTokenExpiry())
+                .recordStats()
+                .build();
+
+        if (enabled) {
+            meterRegistry.ifAvailable(registry -> CaffeineCacheMetrics.monitor(registry, cache, "jwt.token.cache"));
+            log.info("Verified token cache enabled; max size: {}", maxSize);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Entry get(String token) {
+        if (!enabled) return null;
+        Entry entry = cache.getIfPresent(Digest.of(token));
+        //Caffeine expires lazily; never hand out an entry past its exp
+        return entry == null || entry.expiresAtMillis() <= System.currentTimeMillis() ? null : entry;
+    }
+
+    public void put(String token, Entry entry) {
+        if (enabled) cache.put(Digest.of(token), entry);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class ExpireAtTokenExpiry implements Expiry<Digest, Entry> {
+        @Override
+        public long expireAfterCreate(Digest key, Entry entry, long currentTime) {
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, entry.expiresAtMillis() - System.currentTimeMillis()));
+        }
+
+        @Override
+        public long expireAfterUpdate(Digest key, Entry entry, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, entry, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(Digest key, Entry entry, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.seven.auth.client.authorization;
 
+import com.seven.auth.util.GrantedPermissions;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
@@ -23,7 +24,7 @@ public class AuthorizationHandlerInterceptor implements HandlerInterceptor {
     @Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler){
         try {
-            Set<String> tokenPermissions = ((Set<String>) request.getAttribute("permissions"));
+            GrantedPermissions tokenPermissions = (GrantedPermissions) request.getAttribute("permissions");
             log.info("User permissions: {}", tokenPermissions);
 
             if (handler instanceof HandlerMethod) {
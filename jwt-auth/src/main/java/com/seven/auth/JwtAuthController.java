@@ -5,18 +5,22 @@ import com.seven.auth.account.AuthDTO;
 import com.seven.auth.dto.jwt.JwtLoginRequest;
 import com.seven.auth.dto.response.Response;
 import com.seven.auth.exception.AuthorizationException;
+import com.seven.auth.refresh.RefreshTokenDTO;
 import com.seven.auth.util.Constants;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.enums.ParameterIn;
 import io.swagger.v3.oas.annotations.security.SecurityRequirements;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import static com.seven.auth.dto.response.Responder.created;
+import static com.seven.auth.dto.response.Responder.noContent;
 import static com.seven.auth.dto.response.Responder.ok;
 
 @RestController
@@ -33,13 +37,34 @@ public class JwtAuthController {
     @Parameter(name = Constants.TENANT_ID_KEY, in = ParameterIn.HEADER, required = true)
     public ResponseEntity<Response> createResource(@Valid @RequestBody AccountDTO.Create request) throws AuthorizationException {
             AuthDTO userDTO = jwtService.register(request);
-            return created(userDTO.data, userDTO.token, "/domains" );
+            return created(userDTO.data, userDTO.token, userDTO.refreshToken, "/domains" );
     }
 
     @PostMapping(value = "/login", produces = "application/json", consumes = "application/json")
     @Parameter(name = Constants.TENANT_ID_KEY, in = ParameterIn.HEADER, required = true)
-    public ResponseEntity<Response> login(@Valid @RequestBody JwtLoginRequest request) throws AuthorizationException {
-        AuthDTO userDTO = jwtService.login(request);
-        return ok(userDTO.data, userDTO.token);
+    public ResponseEntity<Response> login(@Valid @RequestBody JwtLoginRequest request, HttpServletRequest servletRequest) throws AuthorizationException {
+        AuthDTO userDTO = jwtService.login(request, servletRequest.getRemoteAddr());
+        return ok(userDTO.data, userDTO.token, userDTO.refreshToken);
+    }
+
+    @PostMapping(value = "/refresh", produces = "application/json", consumes = "application/json")
+    @Parameter(name = Constants.TENANT_ID_KEY, in = ParameterIn.HEADER, required = true)
+    public ResponseEntity<Response> refresh(@Valid @RequestBody RefreshTokenDTO.Request request) throws AuthorizationException {
+        AuthDTO userDTO = jwtService.refresh(request);
+        return ok(userDTO.data, userDTO.token, userDTO.refreshToken);
+    }
+
+    @PostMapping(value = "/revoke", consumes = "application/json")
+    @Parameter(name = Constants.TENANT_ID_KEY, in = ParameterIn.HEADER, required = true)
+    public ResponseEntity<Response> revoke(@Valid @RequestBody RefreshTokenDTO.Request request) throws AuthorizationException {
+        jwtService.revoke(request);
+        return noContent();
+    }
+
+    @PostMapping(value = "/logout")
+    @Parameter(name = Constants.TENANT_ID_KEY, in = ParameterIn.HEADER, required = true)
+    public ResponseEntity<Response> logout(@RequestHeader(value = "Authorization") String authorization) throws AuthorizationException {
+        jwtService.logout(authorization.startsWith("Bearer ") ? authorization.substring(7) : authorization);
+        return noContent();
     }
 }
@@ -3,84 +3,161 @@ package com.seven.auth;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.seven.auth.account.Account;
 import com.seven.auth.account.AccountDTO;
+import com.seven.auth.account.AccountRepository;
 import com.seven.auth.account.AccountService;
 import com.seven.auth.account.AuthDTO;
+import com.seven.auth.account.LoginDetails;
+import com.seven.auth.config.threadlocal.RequestTimings;
 import com.seven.auth.config.threadlocal.TenantContext;
 import com.seven.auth.dto.jwt.JwtLoginRequest;
+import com.seven.auth.dto.permission.PermissionDictionary;
 import com.seven.auth.exception.AuthorizationException;
 import com.seven.auth.exception.ClientException;
-import com.seven.auth.permission.Permission;
-import com.seven.auth.permission.PermissionRepository;
+import com.seven.auth.exception.ForbiddenException;
+import com.seven.auth.exception.ServiceUnavailableException;
+import com.seven.auth.key.KeyRing;
+import com.seven.auth.login.LoginGuard;
+import com.seven.auth.password.PasswordHashingService;
+import com.seven.auth.permission.EffectivePermissionCache;
+import com.seven.auth.permission.PermissionDictionaryService;
+import com.seven.auth.refresh.RefreshTokenDTO;
+import com.seven.auth.refresh.RefreshTokenService;
+import com.seven.auth.revocation.RevocationService;
+import com.seven.auth.token.TokenClaims;
+import com.seven.auth.token.TokenMinter;
+import com.seven.auth.util.ClaimsDeserializer;
+import com.seven.auth.util.GrantedPermissions;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
-import io.jsonwebtoken.jackson.io.JacksonSerializer;
-import io.jsonwebtoken.security.Keys;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.core.env.Environment;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.AuthenticationException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.context.annotation.ApplicationScope;
 
-import java.nio.charset.StandardCharsets;
-import java.security.Key;
-import java.time.ZonedDateTime;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
+import java.util.Optional;
 
 @Service
 @ApplicationScope
 public class JwtService {
     private static final Logger log = LoggerFactory.getLogger(JwtService.class);
-    private final Environment environment;
+    private final TokenMinter tokenMinter;
     final private AccountService accountService;
-    final private PermissionRepository permissionRepository;
+    final private EffectivePermissionCache effectivePermissionCache;
+    private final AccountRepository accountRepository;
+    private final RefreshTokenService refreshTokenService;
+    private final RevocationService revocationService;
+    private final LoginGuard loginGuard;
     private final AuthenticationProvider authenticationProvider;
-    private final ObjectMapper objectMapper;
+    private final PermissionDictionaryService permissionDictionaryService;
+    private final boolean bitmapPermissions;
+    private final JwtParser parser;
 
-    public JwtService(Environment environment, AccountService accountService, PermissionRepository permissionRepository, AuthenticationProvider authenticationProvider, ObjectMapper objectMapper) {
-        this.environment = environment;
+    public JwtService(KeyRing keyRing, TokenMinter tokenMinter, AccountService accountService, EffectivePermissionCache effectivePermissionCache, AuthenticationProvider authenticationProvider, ObjectMapper objectMapper,
+                      PermissionDictionaryService permissionDictionaryService, AccountRepository accountRepository, RefreshTokenService refreshTokenService,
+                      RevocationService revocationService, LoginGuard loginGuard, Environment environment) {
+        this.tokenMinter = tokenMinter;
         this.accountService = accountService;
-        this.permissionRepository = permissionRepository;
+        this.effectivePermissionCache = effectivePermissionCache;
+        this.accountRepository = accountRepository;
+        this.refreshTokenService = refreshTokenService;
+        this.revocationService = revocationService;
+        this.loginGuard = loginGuard;
         this.authenticationProvider = authenticationProvider;
-        this.objectMapper = objectMapper;
+        this.permissionDictionaryService = permissionDictionaryService;
+        this.bitmapPermissions = "bitmap".equalsIgnoreCase(environment.getProperty("authentication.jwt.permission-format", "names"));
+        this.parser = Jwts.parserBuilder()
+                .setSigningKeyResolver(keyRing.signingKeyResolver())
+                .deserializeJsonWith(new ClaimsDeserializer(objectMapper, Map.of(
+                        "principal", objectMapper.constructType(AccountDTO.Record.class),
+                        "permissions", objectMapper.getTypeFactory().constructCollectionType(List.class, String.class)
+                )))
+                .build();
     }
 
     public Claims extractClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
+        return parser
                 .parseClaimsJws(token)
                 .getBody();
     }
 
-    private Key getSigningKey() {
-        byte[] bytes = Objects.requireNonNull(environment.getProperty("authentication.jwt.signing-key")).getBytes(StandardCharsets.UTF_8);
-        return Keys.hmacShaKeyFor(bytes);
+    public String generateToken(TokenClaims claims) {
+        try (RequestTimings.Phase ignored = RequestTimings.phase("token")) {
+            return tokenMinter.mint(claims);
+        }
     }
 
-    public String generateToken(String subject, Map<String, Object> claims) {
-        ZonedDateTime now = ZonedDateTime.now();
-        return Jwts
-                .builder()
-                .serializeToJsonWith(new JacksonSerializer <>(objectMapper))
-                .setClaims(claims)
-                .setSubject(subject)
-                .setIssuedAt(Date.from(now.toInstant()))
-                .setExpiration(Date.from(now.plusHours(12).toInstant()))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
-                .compact();
+    /**
+     * Builds the access token claims. With "authentication.jwt.permission-format" set to bitmap, permissions are
+     * encoded against the tenant's dictionary as "pbits" (base64url bitmap) and "pver" (dictionary version);
+     * tokens fall back to the "permissions" name list whenever the dictionary cannot encode them.
+     */
+    private TokenClaims claims(AccountDTO.Record accountRecord, List<String> permissions, String tenant) {
+        TokenClaims claims = TokenClaims.of(accountRecord.email(), tenant, accountRecord, permissions);
+
+        if (bitmapPermissions) {
+            try {
+                PermissionDictionary dictionary = permissionDictionaryService.get(tenant);
+                String bitmap = GrantedPermissions.encode(permissions, dictionary);
+                if (bitmap == null) {
+                    //A permission newer than the cached dictionary; reload once
+                    dictionary = permissionDictionaryService.reload(tenant);
+                    bitmap = GrantedPermissions.encode(permissions, dictionary);
+                }
+                if (bitmap != null) return claims.withBitmap(bitmap, dictionary.getVersion());
+            } catch (AuthorizationException e) {
+                log.warn("Unable to encode permissions as bitmap for Tenant: {}. Message: {}", tenant, e.getMessage());
+            }
+        }
+        return claims;
+    }
+
+    /**
+     * Reads the token's permissions from either the "permissions" name list or the "pbits"/"pver" bitmap
+     */
+    public GrantedPermissions grantedPermissions(Claims claims) throws AuthorizationException {
+        String bitmap = claims.get("pbits", String.class);
+        if (bitmap == null) {
+            List<String> permissions = (List<String>) claims.get("permissions");
+            return GrantedPermissions.of(permissions == null ? List.of() : permissions);
+        }
+        Integer version = claims.get("pver", Integer.class);
+        return GrantedPermissions.of(bitmap, permissionDictionaryService.get(claims.get("tenant", String.class), version == null ? 0 : version));
     }
 
     public boolean isTokenValid(Claims claims) {
         return !isTokenExpired(claims);
     }
 
+    public boolean isTokenRevoked(Claims claims) {
+        return revocationService.isRevoked(claims.getId());
+    }
+
+    /**
+     * Revokes the presented access token until it expires
+     */
+    public void logout(String token) throws AuthorizationException {
+        try {
+            Claims claims = extractClaims(token);
+            //Tokens minted before revocation support carry no jti and cannot be listed
+            if (claims.getId() == null || claims.getId().isBlank())
+                throw new ClientException("Token has no id and cannot be revoked; discard it, it expires at %s".formatted(claims.getExpiration().toInstant()));
+            revocationService.revoke(claims.getId(), claims.getSubject(), claims.get("tenant", String.class), claims.getExpiration().toInstant());
+        } catch (AuthorizationException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Unable to logout. Message: {}", e.getMessage());
+            throw new ForbiddenException("Invalid token");
+        }
+    }
+
     private boolean isTokenExpired(Claims claims) {
         return claims.getExpiration().before(new Date());
     }
@@ -88,14 +165,14 @@ public class JwtService {
     public AuthDTO register(AccountDTO.Create request) throws AuthorizationException {
         try {
             AccountDTO.Record accountRecord = accountService.create(request);
-            List<String> permissions = permissionRepository.findAllByAccount(accountRecord.email()).stream().map(Permission::getName).toList();
-
-            String token = generateToken(accountRecord.email(),
-                    Map.of("permissions", permissions,
-                            "principal", accountRecord,
-                            "tenant", TenantContext.getCurrentTenant())
-            );
-            return AuthDTO.builder().data(accountRecord).token(token).build();
+            TokenClaims claims;
+            try (RequestTimings.Phase ignored = RequestTimings.phase("permissions")) {
+                claims = claims(accountRecord, effectivePermissionCache.get(accountRecord.email()), TenantContext.getCurrentTenant());
+            }
+
+            String token = generateToken(claims);
+            String refreshToken = issueRefreshToken(accountRecord.email());
+            return AuthDTO.builder().data(accountRecord).token(token).refreshToken(refreshToken).build();
         } catch (AuthorizationException e) {
             log.error("ResponseStatusException; Unable to register account {}. Message: ", request.email(), e);
             throw e;
@@ -108,14 +185,14 @@ public class JwtService {
     public AuthDTO registerSuper(AccountDTO.Create request) throws AuthorizationException {
         try {
             AccountDTO.Record accountRecord = accountService.createSuper(request);
-            List<String> permissions = permissionRepository.findAllByAccount(accountRecord.email()).stream().map(Permission::getName).toList();
-
-            String token = generateToken(accountRecord.email(),
-                    Map.of("permissions", permissions,
-                            "principal", accountRecord,
-                            "tenant", TenantContext.getCurrentTenant())
-            );
-            return AuthDTO.builder().data(accountRecord).token(token).build();
+            TokenClaims claims;
+            try (RequestTimings.Phase ignored = RequestTimings.phase("permissions")) {
+                claims = claims(accountRecord, effectivePermissionCache.get(accountRecord.email()), TenantContext.getCurrentTenant());
+            }
+
+            String token = generateToken(claims);
+            String refreshToken = issueRefreshToken(accountRecord.email());
+            return AuthDTO.builder().data(accountRecord).token(token).refreshToken(refreshToken).build();
         } catch (AuthorizationException e) {
             log.error("ResponseStatusException; Unable to register superuser {}. Message: ", request.email(), e);
             throw e;
@@ -125,27 +202,82 @@ public class JwtService {
         }
     }
 
-    @Transactional
-    public AuthDTO login(JwtLoginRequest request) throws AuthorizationException{
+    /**
+     * Not transactional: the credential read, the permission lookup and the refresh token insert each
+     * borrow a connection briefly, and none is held while the password is verified.
+     */
+    public AuthDTO login(JwtLoginRequest request, String clientAddress) throws AuthorizationException{
+        String tenant = TenantContext.getCurrentTenant();
+        //Throttled attempts are turned away before any account lookup or password hashing
+        loginGuard.check(request.getUsername(), clientAddress, tenant);
         try {
-            String tenant = TenantContext.getCurrentTenant();
             log.info("Login username: {}; tenant: {}", request.getUsername(), tenant);
-            Account account = (Account) authenticationProvider
+            //Credentials, principal and permissions arrive from a single query
+            long permissionStamp = effectivePermissionCache.stamp();
+            LoginDetails login = (LoginDetails) authenticationProvider
                     .authenticate(new UsernamePasswordAuthenticationToken(request.getUsername(), request.getPassword()))
                     .getPrincipal();
-            AccountDTO.Record accountRecord = AccountDTO.Record.from(account);
-            List<String> permissions = permissionRepository.findAllByAccount(accountRecord.email()).stream().map(Permission::getName).toList();
+            loginGuard.onSuccess(request.getUsername(), tenant);
+            AccountDTO.Record accountRecord = login.principal();
+            TokenClaims claims;
+            try (RequestTimings.Phase ignored = RequestTimings.phase("permissions")) {
+                effectivePermissionCache.put(accountRecord.email(), login.permissions(), permissionStamp);
+                claims = claims(accountRecord, login.permissions(), tenant);
+            }
 
-            String token = generateToken(account.getEmail(),
-                    Map.of("permissions", permissions,
-                            "principal", accountRecord,
-                            "tenant", tenant)
-            );
+            String token = generateToken(claims);
+            String refreshToken = issueRefreshToken(accountRecord.email());
             log.info("User {} logged in successfully", request.getUsername());
-            return AuthDTO.builder().data(accountRecord).token(token).build();
+            return AuthDTO.builder().data(accountRecord).token(token).refreshToken(refreshToken).build();
         } catch (Exception e) {
+            Optional<ServiceUnavailableException> rejection = PasswordHashingService.rejection(e);
+            if (rejection.isPresent()) {
+                log.warn("Unable to login {}. Message: {}", request.getUsername(), e.getMessage());
+                throw rejection.get();
+            }
+            if (e instanceof AuthenticationException) loginGuard.onFailure(request.getUsername(), clientAddress, tenant);
             log.error("Unable to login {}. Message: ", request.getUsername(), e);
             throw new ClientException(e.getMessage());
         }
     }
+
+    /**
+     * Renews a session from a refresh token. Only the token and account lookups run here; the password
+     * is never re-verified, so this path stays clear of BCrypt.
+     */
+    public AuthDTO refresh(RefreshTokenDTO.Request request) throws AuthorizationException {
+        String tenant = TenantContext.getCurrentTenant();
+        try {
+            RefreshTokenDTO.Rotation rotation = refreshTokenService.rotate(request.refreshToken());
+            Account account = accountRepository.findByEmail(rotation.accountEmail())
+                    .filter(a -> !Boolean.TRUE.equals(a.getIsDeleted()))
+                    .orElseThrow(() -> new ForbiddenException("Account not found"));
+            AccountDTO.Record accountRecord = AccountDTO.Record.from(account);
+            TokenClaims claims;
+            try (RequestTimings.Phase ignored = RequestTimings.phase("permissions")) {
+                //Read past the cache: a renewed token must not outlive a revocation made on another instance
+                claims = claims(accountRecord, effectivePermissionCache.getFresh(accountRecord.email()), tenant);
+            }
+
+            String token = generateToken(claims);
+            log.info("Session refreshed for {} in Tenant: {}", accountRecord.email(), tenant);
+            return AuthDTO.builder().data(accountRecord).token(token).refreshToken(rotation.refreshToken()).build();
+        } catch (AuthorizationException e) {
+            log.error("AuthorizationException; Unable to refresh session in Tenant: {}. Message: {}", tenant, e.getMessage());
+            throw e;
+        } catch (Exception e) {
+            log.error("Unable to refresh session in Tenant: {}. Message: ", tenant, e);
+            throw new ClientException(e.getMessage());
+        }
+    }
+
+    private String issueRefreshToken(String email) throws AuthorizationException {
+        try (RequestTimings.Phase ignored = RequestTimings.phase("refresh_token")) {
+            return refreshTokenService.issue(email);
+        }
+    }
+
+    public void revoke(RefreshTokenDTO.Request request) throws AuthorizationException {
+        refreshTokenService.revoke(request.refreshToken());
+    }
 }
@@ -0,0 +1,100 @@
+package com.seven.auth.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Authenticates service clients, such as adapters and gateways, by HTTP Basic credentials configured under
+ * "authentication.clients" as {id, secret} pairs. An authenticated client holds the {@value #CLIENT_AUTHORITY}
+ * authority and no account. Requests without Basic credentials pass through untouched; wrong credentials
+ * are rejected with 401.
+ */
+@Component
+public class ClientAuthenticationFilter extends OncePerRequestFilter {
+    public static final String CLIENT_AUTHORITY = "CLIENT";
+    private static final Logger log = LoggerFactory.getLogger(ClientAuthenticationFilter.class);
+    private static final String BASIC = "Basic ";
+
+    public record Client(String id, String secret) {
+    }
+
+    private final Map<String, byte[]> secrets = new HashMap<>();
+    //Compared against for unknown ids, so that a miss takes as long as a wrong secret
+    private final byte[] unknown = new byte[32];
+
+    public ClientAuthenticationFilter(Environment environment) {
+        List<Client> clients = Binder.get(environment)
+                .bind("authentication.clients", Bindable.listOf(Client.class))
+                .orElse(List.of());
+        for (Client client : clients) {
+            if (client.id() == null || client.secret() == null || client.secret().length() < 32)
+                throw new IllegalStateException("Client %s needs a secret of at least 32 characters".formatted(client.id()));
+            secrets.put(client.id(), client.secret().getBytes(StandardCharsets.UTF_8));
+        }
+        log.info("{} service client(s) configured", secrets.size());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header == null || !header.regionMatches(true, 0, BASIC, 0, BASIC.length())) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        String id = authenticate(header.substring(BASIC.length()).trim());
+        if (id == null) {
+            log.warn("Rejected client credentials from {}", request.getRemoteAddr());
+            response.setHeader(HttpHeaders.WWW_AUTHENTICATE, "Basic realm=\"seven-id\"");
+            response.sendError(HttpServletResponse.SC_UNAUTHORIZED);
+            return;
+        }
+
+        SecurityContextHolder.getContext().setAuthentication(
+                UsernamePasswordAuthenticationToken.authenticated(id, null, List.of(new SimpleGrantedAuthority(CLIENT_AUTHORITY))));
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    /**
+     * @return the client id, or null if the credentials do not match a configured client
+     */
+    private String authenticate(String credentials) {
+        String decoded;
+        try {
+            decoded = new String(Base64.getDecoder().decode(credentials), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        int colon = decoded.indexOf(':');
+        if (colon < 0) return null;
+        String id = decoded.substring(0, colon);
+        byte[] expected = secrets.getOrDefault(id, unknown);
+        boolean matches = MessageDigest.isEqual(expected, decoded.substring(colon + 1).getBytes(StandardCharsets.UTF_8));
+        return matches && expected != unknown ? id : null;
+    }
+}
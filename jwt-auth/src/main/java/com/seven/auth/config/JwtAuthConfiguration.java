@@ -1,29 +1,39 @@
 package com.seven.auth.config;
 
-import com.seven.auth.account.AccountService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.seven.auth.account.LoginDetailsService;
 import com.seven.auth.config.authentication.TenantFilter;
+import com.seven.auth.password.PasswordEncoderCalibration;
+import com.seven.auth.password.PasswordHashingService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.transaction.support.TransactionTemplate;
 
 
 @Configuration
 @EnableMethodSecurity
 public class JwtAuthConfiguration{
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
+    private final ClientAuthenticationFilter clientAuthenticationFilter;
     private final TenantFilter tenantFilter;
 
-    public JwtAuthConfiguration(JwtAuthenticationFilter jwtAuthenticationFilter, TenantFilter tenantFilter) {
+    public JwtAuthConfiguration(JwtAuthenticationFilter jwtAuthenticationFilter, ClientAuthenticationFilter clientAuthenticationFilter, TenantFilter tenantFilter) {
         this.jwtAuthenticationFilter = jwtAuthenticationFilter;
+        this.clientAuthenticationFilter = clientAuthenticationFilter;
         this.tenantFilter = tenantFilter;
     }
 
@@ -34,11 +44,17 @@ public class JwtAuthConfiguration{
 
                 .authorizeHttpRequests(authorizationManagerRequestMatcherRegistry ->
                         authorizationManagerRequestMatcherRegistry
-                                .requestMatchers(HttpMethod.POST, "/auth/**", "/su/auth/login**").permitAll()
+                                .requestMatchers(HttpMethod.POST, "/auth/introspect/**").hasAuthority(ClientAuthenticationFilter.CLIENT_AUTHORITY)
+                                .requestMatchers(HttpMethod.POST, "/auth/**", "/su/auth/login**", "/su/auth/refresh", "/su/auth/revoke").permitAll()
+                                .requestMatchers(HttpMethod.GET, "/.well-known/permissions/**", "/.well-known/revocations").hasAuthority(ClientAuthenticationFilter.CLIENT_AUTHORITY)
+                                //Tenant-tagged metrics are for scrapers holding client credentials only
+                                .requestMatchers(HttpMethod.GET, "/actuator/prometheus").hasAuthority(ClientAuthenticationFilter.CLIENT_AUTHORITY)
+                                .requestMatchers(HttpMethod.GET, "/.well-known/**", "/actuator/health/**").permitAll()
                                 .requestMatchers("/swagger", "/swagger-ui/**", "/v3/api-docs/**").permitAll()
                                 .anyRequest().authenticated()
                 )
 
+                .addFilterBefore(clientAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
                 .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
                 .addFilterAfter(tenantFilter, UsernamePasswordAuthenticationFilter.class)
 
@@ -49,15 +65,23 @@ public class JwtAuthConfiguration{
 
 
     @Bean
-    public AuthenticationProvider authenticationProvider(AccountService accountService) {
-        DaoAuthenticationProvider dao = new DaoAuthenticationProvider(accountService);
-        dao.setUserDetailsPasswordService(accountService);
-        dao.setPasswordEncoder(bCryptPasswordEncoder());
+    public AuthenticationProvider authenticationProvider(LoginDetailsService loginDetailsService, PasswordHashingService passwordHashingService) {
+        DaoAuthenticationProvider dao = new DaoAuthenticationProvider(loginDetailsService);
+        dao.setUserDetailsPasswordService(loginDetailsService);
+        dao.setPasswordEncoder(passwordHashingService);
         return dao;
     }
 
     @Bean
-    public BCryptPasswordEncoder bCryptPasswordEncoder() {
-        return new BCryptPasswordEncoder(12);
+    public PasswordHashingService passwordHashingService(Environment environment, JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, ObjectProvider<MeterRegistry> meterRegistry) {
+        return new PasswordHashingService(PasswordEncoderCalibration.calibrated(environment, jdbcTemplate, transactionTemplate), environment, meterRegistry);
+    }
+
+    /**
+     * Replaces Spring Boot's JSON converter to time response serialization
+     */
+    @Bean
+    public MappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter(ObjectMapper objectMapper, Environment environment) {
+        return new TimedJacksonHttpMessageConverter(objectMapper, environment.getProperty("authentication.metrics.server-timing", Boolean.class, false));
     }
 }
\ No newline at end of file
@@ -1,9 +1,8 @@
 package com.seven.auth.config;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.type.CollectionType;
 import com.seven.auth.JwtService;
 import com.seven.auth.account.AccountDTO;
+import com.seven.auth.util.GrantedPermissions;
 import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -20,17 +19,14 @@ import org.springframework.web.server.ResponseStatusException;
 
 import java.io.IOException;
 import java.util.List;
-import java.util.Set;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private final JwtService jwtService;
-    private final ObjectMapper objectMapper;
     private final Logger log = LoggerFactory.getLogger(getClass());
 
-    public JwtAuthenticationFilter(JwtService jwtService, ObjectMapper objectMapper) {
+    public JwtAuthenticationFilter(JwtService jwtService) {
         this.jwtService = jwtService;
-        this.objectMapper = objectMapper;
     }
 
     @Override
@@ -44,11 +40,11 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                     String email = claims.getSubject();
 
                     if (email != null) {
-                        if (jwtService.isTokenValid(claims)) {
+                        if (jwtService.isTokenValid(claims) && !jwtService.isTokenRevoked(claims)) {
                             //Extract permissions
-                            List<String> permissions = (List<String>)claims.get("permissions");
+                            GrantedPermissions permissions = jwtService.grantedPermissions(claims);
                             //Extract account record
-                            AccountDTO.Record accountRecord = objectMapper.convertValue(claims.get("principal"), AccountDTO.Record.class);
+                            AccountDTO.Record accountRecord = claims.get("principal", AccountDTO.Record.class);
                             //Extract tenant
                             String tenant = (String) claims.get("tenant");
 
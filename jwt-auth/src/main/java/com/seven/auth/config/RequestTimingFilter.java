@@ -0,0 +1,85 @@
+package com.seven.auth.config;
+
+import com.seven.auth.config.threadlocal.RequestTimings;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records each request's phase breakdown (see {@link RequestTimings}) as "auth.request.phase" timers and its
+ * total as "auth.request", tagged by operation (login, register, refresh or api) so that authentication can be
+ * capacity-planned apart from API traffic, and by tenant.
+ * <p>
+ * Only the first "max-tenant-tags" tenants seen get their own tag; later ones are recorded as "other" so the
+ * number of series stays bounded however many tenants exist. With "server-timing" enabled, responses carry the
+ * breakdown in a Server-Timing header.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class RequestTimingFilter extends OncePerRequestFilter {
+    private static final Map<String, String> OPERATIONS = Map.of(
+            "/auth/login", "login",
+            "/su/auth/login", "login",
+            "/auth/register", "register",
+            "/su/auth/provision", "register",
+            "/auth/refresh", "refresh",
+            "/su/auth/refresh", "refresh");
+
+    private final MeterRegistry registry;
+    private final boolean serverTiming;
+    private final TenantTags tenantTags;
+
+    public RequestTimingFilter(Environment environment, ObjectProvider<MeterRegistry> meterRegistry) {
+        this.registry = meterRegistry.getIfAvailable();
+        this.serverTiming = environment.getProperty("authentication.metrics.server-timing", Boolean.class, false);
+        this.tenantTags = new TenantTags(environment.getProperty("authentication.metrics.max-tenant-tags", Integer.class, 50));
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getRequestURI().startsWith("/actuator");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        RequestTimings.Recording recording = RequestTimings.start(OPERATIONS.getOrDefault(request.getServletPath(), "api"));
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            RequestTimings.clear();
+            //Responses with a body got the header from the message converter before it was committed
+            if (serverTiming && !response.isCommitted() && !response.containsHeader(TimedJacksonHttpMessageConverter.SERVER_TIMING))
+                response.setHeader(TimedJacksonHttpMessageConverter.SERVER_TIMING, recording.serverTiming());
+            record(recording);
+        }
+    }
+
+    private void record(RequestTimings.Recording recording) {
+        if (registry == null) return;
+        String tenant = tenantTags.tag(recording.tenant());
+        recording.phases().forEach((phase, nanos) -> Timer.builder("auth.request.phase")
+                .tag("operation", recording.operation())
+                .tag("phase", phase)
+                .tag("tenant", tenant)
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS));
+        Timer.builder("auth.request")
+                .tag("operation", recording.operation())
+                .tag("tenant", tenant)
+                .register(registry)
+                .record(recording.elapsedNanos(), TimeUnit.NANOSECONDS);
+    }
+}
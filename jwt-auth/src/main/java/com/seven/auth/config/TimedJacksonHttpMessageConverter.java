@@ -0,0 +1,36 @@
+package com.seven.auth.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.seven.auth.config.threadlocal.RequestTimings;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+/**
+ * Times JSON response serialization as the "serialization" request phase. When enabled, also writes the
+ * Server-Timing header here, the last point before the body commits the response headers, so it covers every
+ * phase up to serialization.
+ */
+public class TimedJacksonHttpMessageConverter extends MappingJackson2HttpMessageConverter {
+    public static final String SERVER_TIMING = "Server-Timing";
+
+    private final boolean serverTiming;
+
+    public TimedJacksonHttpMessageConverter(ObjectMapper objectMapper, boolean serverTiming) {
+        super(objectMapper);
+        this.serverTiming = serverTiming;
+    }
+
+    @Override
+    protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage) throws IOException, HttpMessageNotWritableException {
+        RequestTimings.Recording recording = RequestTimings.current();
+        if (serverTiming && recording != null)
+            outputMessage.getHeaders().set(SERVER_TIMING, recording.serverTiming());
+        try (RequestTimings.Phase ignored = RequestTimings.phase("serialization")) {
+            super.writeInternal(object, type, outputMessage);
+        }
+    }
+}
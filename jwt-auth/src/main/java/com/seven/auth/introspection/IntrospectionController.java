@@ -0,0 +1,31 @@
+package com.seven.auth.introspection;
+
+import com.seven.auth.dto.response.Response;
+import com.seven.auth.exception.AuthorizationException;
+import jakarta.validation.Valid;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import static com.seven.auth.dto.response.Responder.ok;
+
+@RestController
+@RequestMapping("/auth/introspect")
+public class IntrospectionController {
+    private final IntrospectionService introspectionService;
+
+    public IntrospectionController(IntrospectionService introspectionService) {
+        this.introspectionService = introspectionService;
+    }
+
+    /**
+     * Service clients only, authenticated with their HTTP Basic credentials
+     */
+    @PostMapping(value = "/batch", produces = "application/json", consumes = "application/json")
+    public ResponseEntity<Response> introspect(@Valid @RequestBody IntrospectionDTO.Request request, Authentication authentication) throws AuthorizationException {
+        return ok(introspectionService.introspect(authentication.getName(), request.tokens()));
+    }
+}
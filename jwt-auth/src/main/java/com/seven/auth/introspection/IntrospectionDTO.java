@@ -0,0 +1,39 @@
+package com.seven.auth.introspection;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotEmpty;
+import org.springframework.validation.annotation.Validated;
+
+import java.util.List;
+
+public class IntrospectionDTO {
+
+    @Validated
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @Schema(name = "IntrospectionBatchRequest")
+    public record Request(
+            @NotEmpty(message = "At least one token is required")
+            List<String> tokens
+    ) {
+    }
+
+    /**
+     * Per-token outcome, in request order. Inactive tokens only carry the reason.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @Schema(name = "IntrospectionResult")
+    public record Result(
+            boolean active,
+            String sub,
+            String tenant,
+            String jti,
+            Long exp,
+            List<String> permissions,
+            String error
+    ) {
+        public static Result inactive(String error) {
+            return new Result(false, null, null, null, null, null, error);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.seven.auth.introspection;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.seven.auth.JwtService;
+import com.seven.auth.exception.AuthorizationException;
+import com.seven.auth.exception.ClientException;
+import com.seven.auth.exception.ServerException;
+import com.seven.auth.exception.ServiceUnavailableException;
+import com.seven.auth.exception.TooManyRequestsException;
+import com.seven.auth.login.TokenBucket;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Verifies batches of access tokens for service clients.
+ * <p>
+ * Each client may introspect "authentication.jwt.introspection.tokens-per-minute" tokens, in bursts of up to
+ * "burst"; past that it gets 429 with Retry-After. Batches are split into chunks verified on a dedicated pool
+ * of "parallelism" threads (default: available cores) with a bounded queue, since revocation checks may block
+ * on the database. When the queue is full, or a batch takes longer than "max-wait", the caller gets 503.
+ */
+@Service
+public class IntrospectionService {
+    private static final Logger log = LoggerFactory.getLogger(IntrospectionService.class);
+    //Below this size the hand-off to the pool outweighs the parallel speed-up
+    private static final int SEQUENTIAL_THRESHOLD = 4;
+
+    private final JwtService jwtService;
+    private final int maxBatchSize;
+    private final int parallelism;
+    private final Duration maxWait;
+    private final Duration retryAfter;
+    private final TokenBucket.Limit clientLimit;
+    private final Cache<String, TokenBucket> buckets;
+    private final ThreadPoolExecutor executor;
+
+    public IntrospectionService(JwtService jwtService, Environment environment) {
+        this.jwtService = jwtService;
+        this.maxBatchSize = environment.getProperty("authentication.jwt.introspection.max-batch-size", Integer.class, 100);
+        this.parallelism = environment.getProperty("authentication.jwt.introspection.parallelism", Integer.class, Runtime.getRuntime().availableProcessors());
+        int queueCapacity = environment.getProperty("authentication.jwt.introspection.queue-capacity", Integer.class, parallelism * 16);
+        this.maxWait = environment.getProperty("authentication.jwt.introspection.max-wait", Duration.class, Duration.ofSeconds(5));
+        this.retryAfter = environment.getProperty("authentication.jwt.introspection.retry-after", Duration.class, Duration.ofSeconds(1));
+        this.clientLimit = new TokenBucket.Limit(
+                environment.getProperty("authentication.jwt.introspection.tokens-per-minute", Integer.class, 60_000),
+                environment.getProperty("authentication.jwt.introspection.burst", Integer.class, 1_000));
+        if (clientLimit.burst() < maxBatchSize)
+            throw new IllegalStateException("Introspection burst %d is below max-batch-size %d".formatted(clientLimit.burst(), maxBatchSize));
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterAccess(clientLimit.refillNanos(), TimeUnit.NANOSECONDS)
+                .build();
+
+        AtomicInteger count = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(parallelism, parallelism, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "introspection-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public List<IntrospectionDTO.Result> introspect(String client, List<String> tokens) throws AuthorizationException {
+        if (tokens.size() > maxBatchSize) {
+            log.error("Introspection batch of {} exceeds the limit of {}", tokens.size(), maxBatchSize);
+            throw new ClientException("At most %d tokens may be introspected per request".formatted(maxBatchSize));
+        }
+        long now = System.nanoTime();
+        long wait = buckets.get(client, k -> new TokenBucket(clientLimit, now)).tryAcquire(now, tokens.size());
+        if (wait > 0) {
+            log.warn("Introspection rate exceeded by client {}", client);
+            throw new TooManyRequestsException("Too many tokens introspected", Duration.ofNanos(wait));
+        }
+        log.info("Introspecting {} token(s) for client {}", tokens.size(), client);
+        if (tokens.size() <= SEQUENTIAL_THRESHOLD) return tokens.stream().map(this::introspect).toList();
+
+        int chunkSize = Math.max(SEQUENTIAL_THRESHOLD, (tokens.size() + parallelism - 1) / parallelism);
+        List<Future<List<IntrospectionDTO.Result>>> futures = new ArrayList<>();
+        try {
+            for (int from = 0; from < tokens.size(); from += chunkSize) {
+                List<String> chunk = tokens.subList(from, Math.min(tokens.size(), from + chunkSize));
+                futures.add(executor.submit(() -> chunk.stream().map(this::introspect).toList()));
+            }
+            long deadline = System.nanoTime() + maxWait.toNanos();
+            List<IntrospectionDTO.Result> results = new ArrayList<>(tokens.size());
+            for (Future<List<IntrospectionDTO.Result>> future : futures) {
+                results.addAll(future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+            }
+            return results;
+        } catch (RejectedExecutionException | TimeoutException e) {
+            futures.forEach(future -> future.cancel(true));
+            log.warn("Introspection pool busy; rejecting batch of {}", tokens.size());
+            throw new ServiceUnavailableException("Server is busy, please retry shortly", retryAfter);
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new ServerException("Introspection interrupted");
+        } catch (ExecutionException e) {
+            log.error("Exception introspecting tokens. Trace: ", e.getCause());
+            throw new ServerException(e.getCause().getMessage());
+        }
+    }
+
+    private IntrospectionDTO.Result introspect(String token) {
+        try {
+            Claims claims = jwtService.extractClaims(token);
+            if (jwtService.isTokenRevoked(claims)) return IntrospectionDTO.Result.inactive("revoked");
+            return new IntrospectionDTO.Result(
+                    true,
+                    claims.getSubject(),
+                    claims.get("tenant", String.class),
+                    claims.getId(),
+                    claims.getExpiration().getTime() / 1000,
+                    jwtService.grantedPermissions(claims).names(),
+                    null
+            );
+        } catch (ExpiredJwtException e) {
+            return IntrospectionDTO.Result.inactive("expired");
+        } catch (Exception e) {
+            return IntrospectionDTO.Result.inactive("invalid");
+        }
+    }
+}
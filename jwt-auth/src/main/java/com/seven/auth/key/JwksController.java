@@ -0,0 +1,33 @@
+package com.seven.auth.key;
+
+import com.seven.auth.dto.jwt.JwkSet;
+import io.swagger.v3.oas.annotations.security.SecurityRequirements;
+import org.springframework.core.env.Environment;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+
+/**
+ * Publishes the public halves of the asymmetric keys in the {@link KeyRing}.
+ * Keys are added well before they are promoted, so responses may be cached for a long time.
+ */
+@RestController
+@SecurityRequirements
+public class JwksController {
+    private final KeyRing keyRing;
+    private final CacheControl cacheControl;
+
+    public JwksController(KeyRing keyRing, Environment environment) {
+        this.keyRing = keyRing;
+        Duration maxAge = environment.getProperty("authentication.jwt.jwks-max-age", Duration.class, Duration.ofHours(1));
+        this.cacheControl = CacheControl.maxAge(maxAge).cachePublic();
+    }
+
+    @GetMapping(value = "/.well-known/jwks.json", produces = "application/json")
+    public ResponseEntity<JwkSet> getJwkSet() {
+        return ResponseEntity.ok().cacheControl(cacheControl).body(keyRing.jwkSet());
+    }
+}
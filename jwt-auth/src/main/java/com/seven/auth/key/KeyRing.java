@@ -0,0 +1,362 @@
+package com.seven.auth.key;
+
+import com.seven.auth.dto.jwt.JwkSet;
+import com.seven.auth.exception.AuthorizationException;
+import com.seven.auth.exception.ClientException;
+import com.seven.auth.exception.ConflictException;
+import com.seven.auth.exception.NotFoundException;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SigningKeyResolver;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The KeyRing holds every key that tokens may currently be signed or verified with.
+ * Keys are selected by the "kid" header; exactly one key is ACTIVE and used for signing,
+ * the rest are VERIFY_ONLY until they are retired.
+ * <p>
+ * The ring is an immutable snapshot swapped atomically on add, promote and retire, so the
+ * request path never locks and never re-derives key material. A single resolver picks the
+ * verification key from the current snapshot, which keeps verification cost constant however
+ * many keys the ring holds.
+ * <p>
+ * "authentication.jwt.algorithm" selects HS256 (shared secret) or ES256 (key pair). In ES256 mode
+ * the public halves are published as a JWK set so that adapters can verify without any secret.
+ * <p>
+ * Keys come from configuration and from the {@link SigningKeyStore}, where keys added, promoted or retired at
+ * runtime are recorded; a stored status overrides the configured one. Material of configured keys stays in
+ * configuration; the store only records their status. Every instance reloads the store every
+ * "authentication.jwt.key-sync-interval", so a new key should be added at least that long before it is
+ * promoted, giving every instance the means to verify what it signs.
+ * <p>
+ * Runtime rotation is for ES256, whose public keys reach adapters through the JWK set. Adapters only know the
+ * HS256 secrets in their own configuration, so HS256 keys cannot be added at runtime and only configured ones
+ * can be promoted.
+ */
+@Component
+public class KeyRing {
+    public static final String DEFAULT_KID = "default";
+    private static final Logger log = LoggerFactory.getLogger(KeyRing.class);
+
+    private final SignatureAlgorithm algorithm;
+    private final Map<String, SigningKey> configured;
+    private final String activeKid;
+    private final SigningKeyStore store;
+    private final Duration syncInterval;
+    private volatile Snapshot snapshot;
+    private ScheduledExecutorService synchronizer;
+    private final SigningKeyResolver signingKeyResolver = new KidResolver();
+
+    private record Snapshot(Map<String, SigningKey> keys, SigningKey active, JwkSet jwkSet) {
+        Snapshot(Map<String, SigningKey> keys, SigningKey active) {
+            this(Map.copyOf(keys), active, toJwkSet(keys.values()));
+        }
+    }
+
+    /**
+     * A ring of configured keys only, as used outside the application
+     */
+    public KeyRing(Environment environment) {
+        this(environment, null);
+    }
+
+    @Autowired
+    public KeyRing(Environment environment, SigningKeyStore store) {
+        this.algorithm = SignatureAlgorithm.forName(environment.getProperty("authentication.jwt.algorithm", "HS256"));
+        if (algorithm != SignatureAlgorithm.HS256 && algorithm != SignatureAlgorithm.ES256)
+            throw new IllegalStateException("Unsupported signing algorithm: " + algorithm.getValue());
+
+        Map<String, SigningKey> keys = new LinkedHashMap<>();
+        String legacySecret = environment.getProperty("authentication.jwt.signing-key");
+        if (legacySecret != null && !legacySecret.isBlank())
+            keys.put(DEFAULT_KID, hmacKey(DEFAULT_KID, legacySecret));
+
+        List<SigningKeyDTO.Create> configuredKeys = Binder.get(environment)
+                .bind("authentication.jwt.keys", Bindable.listOf(SigningKeyDTO.Create.class))
+                .orElse(List.of());
+        for (SigningKeyDTO.Create k : configuredKeys) {
+            try {
+                keys.put(k.kid(), createKey(k));
+            } catch (GeneralSecurityException | IllegalArgumentException e) {
+                throw new IllegalStateException("Invalid signing key configured for kid: " + k.kid(), e);
+            }
+        }
+
+        String activeKid = environment.getProperty("authentication.jwt.active-kid", DEFAULT_KID);
+        this.store = store;
+        this.syncInterval = environment.getProperty("authentication.jwt.key-sync-interval", Duration.class, Duration.ofSeconds(30));
+        if (store != null) store.sealPlaintext();
+        List<SigningKeyStore.Stored> stored = store == null ? List.of() : store.load();
+        Snapshot loaded = build(keys, activeKid, stored);
+        if (loaded == null && store != null && store.canStorePrivateKeys()) {
+            //Nothing usable is configured or stored for the selected algorithm. Generate one shared key: instances
+            //starting together all write the same kid and the first write wins, so every instance signs with it
+            String generatedKid = algorithm.getValue().toLowerCase(Locale.ROOT) + "-generated";
+            log.warn("No {} key configured for kid {}; storing generated key {}", algorithm.getValue(), activeKid, generatedKid);
+            store.activate(stored(generateKey(generatedKid), SigningKey.Status.ACTIVE, true));
+            stored = store.load();
+            loaded = build(keys, activeKid, stored);
+        }
+        if (loaded == null)
+            throw new IllegalStateException("No %s signing key configured for kid %s; configure one, or authentication.jwt.key-encryption-key to have one generated"
+                    .formatted(algorithm.getValue(), activeKid));
+        this.configured = Collections.unmodifiableMap(keys);
+        this.activeKid = activeKid;
+        this.snapshot = loaded;
+        log.info("Key ring initialised with {} key(s); algorithm: {}; active kid: {}", loaded.keys().size(), algorithm.getValue(), loaded.active().kid());
+    }
+
+    @PostConstruct
+    public void startSync() {
+        if (store == null) return;
+        synchronizer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "key-ring-sync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        synchronizer.scheduleWithFixedDelay(this::sync, syncInterval.toMillis(), syncInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stopSync() {
+        if (synchronizer != null) synchronizer.shutdownNow();
+    }
+
+    public SigningKey active() {
+        return snapshot.active();
+    }
+
+    public SigningKeyResolver signingKeyResolver() {
+        return signingKeyResolver;
+    }
+
+    public Collection<SigningKey> keys() {
+        return snapshot.keys().values();
+    }
+
+    public JwkSet jwkSet() {
+        return snapshot.jwkSet();
+    }
+
+    public synchronized SigningKey add(SigningKeyDTO.Create request) throws AuthorizationException {
+        Snapshot current = snapshot;
+        if (current.keys().containsKey(request.kid()))
+            throw new ConflictException("A signing key with kid '%s' already exists".formatted(request.kid()));
+
+        if (algorithm == SignatureAlgorithm.HS256 || request.secret() != null)
+            throw new ClientException("HS256 keys cannot be added at runtime; configure them under authentication.jwt.keys on jwt-auth and every adapter");
+        if (store != null && !store.canStorePrivateKeys())
+            throw new ConflictException("Adding signing keys requires authentication.jwt.key-encryption-key");
+
+        SigningKey key;
+        try {
+            key = createKey(request);
+        } catch (Exception e) {
+            throw new ClientException(e.getMessage());
+        }
+
+        if (store != null && !store.insert(stored(key, key.status(), true)))
+            throw new ConflictException("A signing key with kid '%s' already exists".formatted(request.kid()));
+
+        Map<String, SigningKey> keys = new LinkedHashMap<>(current.keys());
+        keys.put(key.kid(), key);
+        snapshot = new Snapshot(keys, current.active());
+        log.info("Signing key {} added to key ring", key.kid());
+        return key;
+    }
+
+    public synchronized SigningKey promote(String kid) throws AuthorizationException {
+        Snapshot current = snapshot;
+        SigningKey key = current.keys().get(kid);
+        if (key == null)
+            throw new NotFoundException("Signing key '%s' not found".formatted(kid));
+        if (key.status() == SigningKey.Status.ACTIVE)
+            return key;
+        if (key.algorithm() != algorithm)
+            throw new ConflictException("Signing key '%s' is a %s key; only %s keys can sign".formatted(kid, key.algorithm().getValue(), algorithm.getValue()));
+        if (key.algorithm() == SignatureAlgorithm.HS256 && !configured.containsKey(kid))
+            throw new ConflictException("Signing key '%s' is not configured, so adapters cannot verify it".formatted(kid));
+
+        //Configured keys are recorded without material; any other key is already stored with it
+        if (store != null) store.activate(stored(key, SigningKey.Status.ACTIVE, false));
+        SigningKey promoted = key.withStatus(SigningKey.Status.ACTIVE);
+        Map<String, SigningKey> keys = new LinkedHashMap<>(current.keys());
+        keys.put(current.active().kid(), current.active().withStatus(SigningKey.Status.VERIFY_ONLY));
+        keys.put(kid, promoted);
+        snapshot = new Snapshot(keys, promoted);
+        log.info("Signing key {} promoted; {} demoted to verification only", kid, current.active().kid());
+        return promoted;
+    }
+
+    public synchronized void retire(String kid) throws AuthorizationException {
+        Snapshot current = snapshot;
+        SigningKey key = current.keys().get(kid);
+        if (key == null)
+            throw new NotFoundException("Signing key '%s' not found".formatted(kid));
+        if (key.status() == SigningKey.Status.ACTIVE)
+            throw new ConflictException("The active signing key cannot be retired; promote another key first");
+
+        if (store != null) store.retire(kid, key.algorithm().getValue());
+        Map<String, SigningKey> keys = new LinkedHashMap<>(current.keys());
+        keys.remove(kid);
+        snapshot = new Snapshot(keys, current.active());
+        log.info("Signing key {} retired", kid);
+    }
+
+    private synchronized void sync() {
+        try {
+            Snapshot loaded = build(configured, activeKid, store.load());
+            if (loaded == null) {
+                log.error("No usable {} key in the key ring after sync; keeping the current ring", algorithm.getValue());
+                return;
+            }
+            Snapshot current = snapshot;
+            if (!loaded.keys().keySet().equals(current.keys().keySet()) || !loaded.active().kid().equals(current.active().kid()))
+                log.info("Key ring synced; {} key(s); active kid: {}", loaded.keys().size(), loaded.active().kid());
+            snapshot = loaded;
+        } catch (Exception e) {
+            //Keep signing and verifying with the ring we have
+            log.error("Unable to sync signing keys: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Configured keys overlaid with stored ones; null if neither provides a key that can sign
+     */
+    private Snapshot build(Map<String, SigningKey> configuredKeys, String configuredActiveKid, List<SigningKeyStore.Stored> stored) {
+        Map<String, SigningKey> keys = new LinkedHashMap<>(configuredKeys);
+        SigningKey active = null;
+        for (SigningKeyStore.Stored row : stored) {
+            if (SigningKeyStore.RETIRED.equals(row.status())) {
+                keys.remove(row.kid());
+                continue;
+            }
+            try {
+                SigningKey key = row.privateKey() == null ? configuredKeys.get(row.kid()) : fromStored(row);
+                if (key == null) {
+                    log.error("Stored signing key {} has no readable material and was skipped", row.kid());
+                    continue;
+                }
+                if (SigningKey.Status.valueOf(row.status()) == SigningKey.Status.ACTIVE && key.algorithm() == algorithm) active = key;
+                keys.put(key.kid(), key.withStatus(SigningKey.Status.VERIFY_ONLY));
+            } catch (GeneralSecurityException | IllegalArgumentException e) {
+                log.error("Stored signing key {} is unreadable and was skipped: {}", row.kid(), e.getMessage());
+            }
+        }
+        if (active == null) {
+            SigningKey candidate = keys.get(configuredActiveKid);
+            if (candidate != null && candidate.algorithm() == algorithm) active = candidate;
+        }
+        if (active == null) return null;
+        active = active.withStatus(SigningKey.Status.ACTIVE);
+        keys.put(active.kid(), active);
+        return new Snapshot(keys, active);
+    }
+
+    private static SigningKeyStore.Stored stored(SigningKey key, SigningKey.Status status, boolean material) {
+        if (!material) return new SigningKeyStore.Stored(key.kid(), key.algorithm().getValue(), null, null, status.name(), key.dateCreated());
+        Base64.Encoder encoder = Base64.getEncoder();
+        String publicKey = key.algorithm() == SignatureAlgorithm.HS256 ? null : encoder.encodeToString(key.verificationKey().getEncoded());
+        return new SigningKeyStore.Stored(key.kid(), key.algorithm().getValue(), encoder.encodeToString(key.signingKey().getEncoded()),
+                publicKey, status.name(), key.dateCreated());
+    }
+
+    private static SigningKey fromStored(SigningKeyStore.Stored row) throws GeneralSecurityException {
+        SigningKey.Status status = SigningKey.Status.valueOf(row.status());
+        byte[] privateKey = Base64.getDecoder().decode(row.privateKey());
+        if (SignatureAlgorithm.HS256.getValue().equals(row.algorithm())) {
+            Key key = Keys.hmacShaKeyFor(privateKey);
+            return new SigningKey(row.kid(), SignatureAlgorithm.HS256, key, key, status, row.dateCreated());
+        }
+        KeyFactory keyFactory = KeyFactory.getInstance("EC");
+        return new SigningKey(row.kid(), SignatureAlgorithm.ES256,
+                keyFactory.generatePrivate(new PKCS8EncodedKeySpec(privateKey)),
+                keyFactory.generatePublic(new X509EncodedKeySpec(Base64.getDecoder().decode(row.publicKey()))),
+                status, row.dateCreated());
+    }
+
+    private SigningKey createKey(SigningKeyDTO.Create request) throws GeneralSecurityException {
+        if (request.secret() != null)
+            return hmacKey(request.kid(), request.secret());
+        if (algorithm == SignatureAlgorithm.HS256)
+            throw new IllegalArgumentException("A secret is required for HS256 keys");
+        if (request.privateKey() == null && request.publicKey() == null)
+            return generateKey(request.kid());
+        if (request.privateKey() == null || request.publicKey() == null)
+            throw new IllegalArgumentException("Both privateKey and publicKey are required for imported ES256 keys");
+
+        KeyFactory keyFactory = KeyFactory.getInstance("EC");
+        Key privateKey = keyFactory.generatePrivate(new PKCS8EncodedKeySpec(Base64.getDecoder().decode(request.privateKey())));
+        Key publicKey = keyFactory.generatePublic(new X509EncodedKeySpec(Base64.getDecoder().decode(request.publicKey())));
+        return new SigningKey(request.kid(), SignatureAlgorithm.ES256, privateKey, publicKey, SigningKey.Status.VERIFY_ONLY, ZonedDateTime.now());
+    }
+
+    private SigningKey generateKey(String kid) {
+        if (algorithm == SignatureAlgorithm.HS256) {
+            Key key = Keys.secretKeyFor(SignatureAlgorithm.HS256);
+            return new SigningKey(kid, SignatureAlgorithm.HS256, key, key, SigningKey.Status.VERIFY_ONLY, ZonedDateTime.now());
+        }
+        KeyPair keyPair = Keys.keyPairFor(SignatureAlgorithm.ES256);
+        return new SigningKey(kid, SignatureAlgorithm.ES256, keyPair.getPrivate(), keyPair.getPublic(), SigningKey.Status.VERIFY_ONLY, ZonedDateTime.now());
+    }
+
+    private static SigningKey hmacKey(String kid, String secret) {
+        Key key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        return new SigningKey(kid, SignatureAlgorithm.HS256, key, key, SigningKey.Status.VERIFY_ONLY, ZonedDateTime.now());
+    }
+
+    private static JwkSet toJwkSet(Collection<SigningKey> keys) {
+        return new JwkSet(keys.stream()
+                .filter(k -> k.verificationKey() instanceof ECPublicKey)
+                .map(k -> JwkSet.Jwk.from(k.kid(), (ECPublicKey) k.verificationKey()))
+                .toList());
+    }
+
+    /**
+     * Resolves the verification key by "kid". Tokens issued before the key ring existed
+     * carry no kid and are verified with the default key.
+     */
+    private class KidResolver extends SigningKeyResolverAdapter {
+        @Override
+        public Key resolveSigningKey(JwsHeader header, Claims claims) {
+            String kid = header.getKeyId() == null ? DEFAULT_KID : header.getKeyId();
+            SigningKey key = snapshot.keys().get(kid);
+            if (key == null)
+                throw new SignatureException("Unknown signing key: " + kid);
+            return key.verificationKey();
+        }
+    }
+}
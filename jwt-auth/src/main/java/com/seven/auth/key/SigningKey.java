@@ -0,0 +1,58 @@
+package com.seven.auth.key;
+
+import io.jsonwebtoken.SignatureAlgorithm;
+
+import java.security.Key;
+import java.time.ZonedDateTime;
+
+/**
+ * A single versioned entry of the {@link KeyRing}. Key material is derived once when the
+ * entry is created and is never re-derived while the entry lives in the ring.
+ */
+public final class SigningKey {
+    public enum Status {ACTIVE, VERIFY_ONLY}
+
+    private final String kid;
+    private final SignatureAlgorithm algorithm;
+    private final Key signingKey;
+    private final Key verificationKey;
+    private final Status status;
+    private final ZonedDateTime dateCreated;
+
+    SigningKey(String kid, SignatureAlgorithm algorithm, Key signingKey, Key verificationKey, Status status, ZonedDateTime dateCreated) {
+        this.kid = kid;
+        this.algorithm = algorithm;
+        this.signingKey = signingKey;
+        this.verificationKey = verificationKey;
+        this.status = status;
+        this.dateCreated = dateCreated;
+    }
+
+    SigningKey withStatus(Status status) {
+        return new SigningKey(kid, algorithm, signingKey, verificationKey, status, dateCreated);
+    }
+
+    public String kid() {
+        return kid;
+    }
+
+    public SignatureAlgorithm algorithm() {
+        return algorithm;
+    }
+
+    public Key signingKey() {
+        return signingKey;
+    }
+
+    public Key verificationKey() {
+        return verificationKey;
+    }
+
+    public Status status() {
+        return status;
+    }
+
+    public ZonedDateTime dateCreated() {
+        return dateCreated;
+    }
+}
@@ -0,0 +1,53 @@
+package com.seven.auth.key;
+
+import com.seven.auth.config.authorization.Authorize;
+import com.seven.auth.dto.response.Response;
+import com.seven.auth.exception.AuthorizationException;
+import com.seven.auth.permission.PEnum;
+import com.seven.auth.util.Constants;
+import jakarta.validation.Valid;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+import static com.seven.auth.dto.response.Responder.noContent;
+import static com.seven.auth.dto.response.Responder.ok;
+
+@RestController
+@RequestMapping(Constants.PATH_PREFIX + "/keys")
+public class SigningKeyController {
+    private final KeyRing keyRing;
+
+    public SigningKeyController(KeyRing keyRing) {
+        this.keyRing = keyRing;
+    }
+
+    @GetMapping
+    @Authorize(permissions = PEnum.super_read)
+    public ResponseEntity<Response> getResources() {
+        List<SigningKeyDTO.Record> records = keyRing.keys().stream().map(SigningKeyDTO.Record::from).toList();
+        return ok(records);
+    }
+
+    @PostMapping
+    @Authorize(permissions = PEnum.super_create)
+    public ResponseEntity<Response> createResource(@Valid @RequestBody SigningKeyDTO.Create request) throws AuthorizationException {
+        SigningKey key = keyRing.add(request);
+        return ok(SigningKeyDTO.Record.from(key));
+    }
+
+    @PutMapping("{kid}/promote")
+    @Authorize(permissions = PEnum.super_update)
+    public ResponseEntity<Response> promoteResource(@PathVariable(value = "kid") String kid) throws AuthorizationException {
+        SigningKey key = keyRing.promote(kid);
+        return ok(SigningKeyDTO.Record.from(key));
+    }
+
+    @DeleteMapping("{kid}")
+    @Authorize(permissions = PEnum.super_delete)
+    public ResponseEntity<Response> deleteResource(@PathVariable(value = "kid") String kid) throws AuthorizationException {
+        keyRing.retire(kid);
+        return noContent();
+    }
+}
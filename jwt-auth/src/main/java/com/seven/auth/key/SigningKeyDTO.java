@@ -0,0 +1,48 @@
+package com.seven.auth.key;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.ZonedDateTime;
+
+public class SigningKeyDTO {
+
+    /**
+     * HS256 keys require a secret and are only taken from configuration. ES256 keys take a base64 PKCS#8 private key and X.509 public key,
+     * or have a fresh key pair generated when both are omitted.
+     */
+    @Validated
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @Schema(name = "SigningKeyCreateRequest")
+    public record Create(
+            @NotBlank(message = "Required field")
+            @Pattern(regexp = "^[\\w\\-.]{1,64}$", message = "Key id must be a sequence of 1-64 alphanumeric, '.', '_' or '-' characters")
+            String kid,
+            @Pattern(regexp = ".{32,}", message = "Secret must be at least 32 characters long")
+            String secret,
+            String privateKey,
+            String publicKey
+    ) {
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @Schema(name = "SigningKeyResponse")
+    public record Record(
+            String kid,
+            String algorithm,
+            SigningKey.Status status,
+            ZonedDateTime dateCreated
+    ) {
+        public static Record from(SigningKey key) {
+            return new Record(
+                    key.kid(),
+                    key.algorithm().getValue(),
+                    key.status(),
+                    key.dateCreated()
+            );
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.seven.auth.key;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.OffsetDateTime;
+import java.time.ZonedDateTime;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Persists the signing keys managed through the {@link KeyRing} in public.auth_signing_key, so that they
+ * survive restarts and reach every instance. Key material is stored base64-encoded: the raw secret of HS256
+ * keys, PKCS#8 and X.509 encodings of ES256 key pairs. Keys taken from configuration are stored without
+ * material, only to record their status.
+ * <p>
+ * Private material is sealed with AES-GCM under "authentication.jwt.key-encryption-key" (base64, 16, 24 or
+ * 32 bytes) and bound to its kid, so a copy of the table alone cannot sign tokens. Without that key nothing
+ * private is written; rows written in plain text before it was configured are sealed at startup.
+ */
+@Component
+public class SigningKeyStore {
+    public static final String RETIRED = "RETIRED";
+    private static final Logger log = LoggerFactory.getLogger(SigningKeyStore.class);
+    private static final String SEALED = "aes-gcm:";
+    private static final int IV_LENGTH = 12;
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final SecretKey encryptionKey;
+
+    public record Stored(String kid, String algorithm, String privateKey, String publicKey, String status, ZonedDateTime dateCreated) {
+    }
+
+    public SigningKeyStore(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, Environment environment) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        String encoded = environment.getProperty("authentication.jwt.key-encryption-key");
+        if (encoded == null || encoded.isBlank()) {
+            this.encryptionKey = null;
+        } else {
+            byte[] key = Base64.getDecoder().decode(encoded.trim());
+            if (key.length != 16 && key.length != 24 && key.length != 32)
+                throw new IllegalStateException("authentication.jwt.key-encryption-key must be 16, 24 or 32 bytes, base64-encoded");
+            this.encryptionKey = new SecretKeySpec(key, "AES");
+        }
+    }
+
+    /**
+     * @return whether keys with private material can be stored
+     */
+    public boolean canStorePrivateKeys() {
+        return encryptionKey != null;
+    }
+
+    /**
+     * Rows whose private material cannot be read come back without it
+     */
+    public List<Stored> load() {
+        return jdbcTemplate.query("SELECT kid, algorithm, private_key, public_key, status, date_created FROM public.auth_signing_key ORDER BY date_created",
+                (rs, i) -> new Stored(rs.getString(1), rs.getString(2), open(rs.getString(1), rs.getString(3)), rs.getString(4), rs.getString(5),
+                        rs.getObject(6, OffsetDateTime.class).toZonedDateTime()));
+    }
+
+    /**
+     * Seals private material stored in plain text, once a key-encryption key is configured
+     */
+    public void sealPlaintext() {
+        if (encryptionKey == null) return;
+        List<Stored> plain = jdbcTemplate.query("SELECT kid, private_key FROM public.auth_signing_key WHERE private_key IS NOT NULL AND private_key NOT LIKE ?",
+                (rs, i) -> new Stored(rs.getString(1), null, rs.getString(2), null, null, null), SEALED + "%");
+        if (plain.isEmpty()) return;
+        transactionTemplate.executeWithoutResult(status -> {
+            for (Stored row : plain) {
+                jdbcTemplate.update("UPDATE public.auth_signing_key SET private_key = ? WHERE kid = ? AND private_key = ?",
+                        seal(row.kid(), row.privateKey()), row.kid(), row.privateKey());
+            }
+        });
+        log.info("Sealed private material of {} stored signing key(s)", plain.size());
+    }
+
+    /**
+     * @return false if a key with the same kid is already stored, retired ones included
+     */
+    public boolean insert(Stored key) {
+        String privateKey = seal(key.kid(), key.privateKey());
+        Integer inserted = transactionTemplate.execute(status -> jdbcTemplate.update("""
+                        INSERT INTO public.auth_signing_key (kid, algorithm, private_key, public_key, status)
+                        VALUES (?, ?, ?, ?, ?) ON CONFLICT (kid) DO NOTHING""",
+                key.kid(), key.algorithm(), privateKey, key.publicKey(), key.status()));
+        return inserted != null && inserted > 0;
+    }
+
+    /**
+     * Makes key the one signing key, storing it first if it only came from configuration
+     */
+    public void activate(Stored key) {
+        String privateKey = seal(key.kid(), key.privateKey());
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("UPDATE public.auth_signing_key SET status = 'VERIFY_ONLY' WHERE status = 'ACTIVE' AND kid <> ?", key.kid());
+            jdbcTemplate.update("""
+                            INSERT INTO public.auth_signing_key (kid, algorithm, private_key, public_key, status)
+                            VALUES (?, ?, ?, ?, 'ACTIVE') ON CONFLICT (kid) DO UPDATE SET status = 'ACTIVE'""",
+                    key.kid(), key.algorithm(), privateKey, key.publicKey());
+        });
+    }
+
+    /**
+     * Drops the key material and leaves a tombstone, which also retires a key taken from configuration
+     */
+    public void retire(String kid, String algorithm) {
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.update("""
+                        INSERT INTO public.auth_signing_key (kid, algorithm, status) VALUES (?, ?, 'RETIRED')
+                        ON CONFLICT (kid) DO UPDATE SET status = 'RETIRED', private_key = NULL, public_key = NULL""",
+                kid, algorithm));
+    }
+
+    private String seal(String kid, String material) {
+        if (material == null) return null;
+        if (encryptionKey == null)
+            throw new IllegalStateException("Storing private key material requires authentication.jwt.key-encryption-key");
+        try {
+            byte[] iv = new byte[IV_LENGTH];
+            RANDOM.nextBytes(iv);
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.ENCRYPT_MODE, encryptionKey, new GCMParameterSpec(128, iv));
+            cipher.updateAAD(kid.getBytes(StandardCharsets.UTF_8));
+            byte[] sealed = cipher.doFinal(material.getBytes(StandardCharsets.US_ASCII));
+            return SEALED + Base64.getEncoder().encodeToString(ByteBuffer.allocate(iv.length + sealed.length).put(iv).put(sealed).array());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to seal signing key: " + kid, e);
+        }
+    }
+
+    private String open(String kid, String stored) {
+        if (stored == null || !stored.startsWith(SEALED)) return stored;
+        if (encryptionKey == null) {
+            log.error("Signing key {} is sealed, but no authentication.jwt.key-encryption-key is configured", kid);
+            return null;
+        }
+        try {
+            byte[] sealed = Base64.getDecoder().decode(stored.substring(SEALED.length()));
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.DECRYPT_MODE, encryptionKey, new GCMParameterSpec(128, sealed, 0, IV_LENGTH));
+            cipher.updateAAD(kid.getBytes(StandardCharsets.UTF_8));
+            return new String(cipher.doFinal(sealed, IV_LENGTH, sealed.length - IV_LENGTH), StandardCharsets.US_ASCII);
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            log.error("Unable to open signing key {}: {}", kid, e.getMessage());
+            return null;
+        }
+    }
+}
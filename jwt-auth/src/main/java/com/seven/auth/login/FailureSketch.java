@@ -0,0 +1,120 @@
+package com.seven.auth.login;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Approximate per-key failure counts over a sliding window, in fixed memory whatever the number of keys.
+ * <p>
+ * Each window is a count-min sketch (estimates never undercount). Two windows are kept and the estimate
+ * weights the previous one by how much of it still overlaps the sliding window.
+ */
+final class FailureSketch {
+    private static final int DEPTH = 4;
+    private static final long[] SEEDS = {0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0xD6E8FEB86659FD93L};
+
+    private final long seed = ThreadLocalRandom.current().nextLong();
+    private final int mask;
+    private final long windowNanos;
+    private final AtomicReference<Windows> windows;
+
+    private record Windows(long start, AtomicIntegerArray current, AtomicIntegerArray previous) {
+    }
+
+    /**
+     * @param width counters per row, rounded up to a power of two
+     */
+    FailureSketch(int width, long windowNanos, long nowNanos) {
+        int size = Integer.highestOneBit(Math.max(16, width - 1) << 1);
+        this.mask = size - 1;
+        this.windowNanos = windowNanos;
+        this.windows = new AtomicReference<>(new Windows(nowNanos, new AtomicIntegerArray(DEPTH * size), new AtomicIntegerArray(DEPTH * size)));
+    }
+
+    /**
+     * Records a failure and returns the key's estimated failures within the sliding window, this one included
+     */
+    int increment(String key, long nowNanos) {
+        Windows w = roll(nowNanos);
+        long hash = hash(key);
+        int min = Integer.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            min = Math.min(min, w.current.incrementAndGet(index(row, hash)));
+        }
+        return min + previous(w, hash, nowNanos);
+    }
+
+    int estimate(String key, long nowNanos) {
+        Windows w = roll(nowNanos);
+        long hash = hash(key);
+        int min = Integer.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            min = Math.min(min, w.current.get(index(row, hash)));
+        }
+        return min + previous(w, hash, nowNanos);
+    }
+
+    /**
+     * Forgets the key's failures in both windows by taking its estimate off each of its counters. Keys sharing
+     * one of those counters may lose up to the amount by which that estimate overcounted.
+     */
+    void clear(String key, long nowNanos) {
+        Windows w = roll(nowNanos);
+        long hash = hash(key);
+        clear(w.current, hash);
+        clear(w.previous, hash);
+    }
+
+    private void clear(AtomicIntegerArray counters, long hash) {
+        int min = Integer.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            min = Math.min(min, counters.get(index(row, hash)));
+        }
+        if (min == 0) return;
+        for (int row = 0; row < DEPTH; row++) {
+            int estimate = min;
+            counters.getAndUpdate(index(row, hash), count -> Math.max(0, count - estimate));
+        }
+    }
+
+    private int previous(Windows w, long hash, long nowNanos) {
+        int min = Integer.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            min = Math.min(min, w.previous.get(index(row, hash)));
+        }
+        double overlap = 1.0 - (double) (nowNanos - w.start) / windowNanos;
+        return (int) (min * Math.max(0, overlap));
+    }
+
+    private Windows roll(long nowNanos) {
+        Windows w = windows.get();
+        while (nowNanos - w.start >= windowNanos) {
+            boolean adjacent = nowNanos - w.start < 2 * windowNanos;
+            Windows next = new Windows(adjacent ? w.start + windowNanos : nowNanos,
+                    new AtomicIntegerArray(w.current.length()),
+                    adjacent ? w.current : new AtomicIntegerArray(w.current.length()));
+            if (windows.compareAndSet(w, next)) return next;
+            w = windows.get();
+        }
+        return w;
+    }
+
+    /**
+     * 64-bit FNV-1a with a per-instance random basis, so that colliding keys cannot be crafted offline
+     * to inflate someone else's failure count
+     */
+    private long hash(String key) {
+        long h = seed;
+        for (int i = 0; i < key.length(); i++) {
+            h = (h ^ key.charAt(i)) * 0x100000001B3L;
+        }
+        return h;
+    }
+
+    private int index(int row, long hash) {
+        long h = (hash ^ SEEDS[row]) * 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        return row * (mask + 1) + (int) (h & mask);
+    }
+}
@@ -0,0 +1,147 @@
+package com.seven.auth.login;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.seven.auth.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sheds login attempts before any account lookup or password hashing.
+ * <p>
+ * Each attempt takes a token from three buckets: the username within its tenant, the client address and
+ * the tenant as a whole. Failed attempts are counted per username and per address over a sliding window;
+ * past "failure-threshold" failures the key is cooled down for base-cooldown, doubling with each further
+ * failure up to max-cooldown. Buckets and cooldowns live in bounded caches, and failure counts in a
+ * fixed-size sketch, so memory stays flat however many usernames an attacker cycles through.
+ */
+@Component
+public class LoginGuard {
+    private static final Logger log = LoggerFactory.getLogger(LoginGuard.class);
+
+    private final boolean enabled;
+    private final TokenBucket.Limit usernameLimit;
+    private final TokenBucket.Limit addressLimit;
+    private final TokenBucket.Limit tenantLimit;
+    private final int failureThreshold;
+    private final long baseCooldownNanos;
+    private final long maxCooldownNanos;
+
+    private final Cache<String, TokenBucket> buckets;
+    private final Cache<String, Long> cooldowns;
+    private final FailureSketch failures;
+    private final Counter throttled;
+    private final Counter cooledDown;
+
+    public LoginGuard(Environment environment, ObjectProvider<MeterRegistry> meterRegistry) {
+        this.enabled = environment.getProperty("authentication.login-guard.enabled", Boolean.class, true);
+        this.usernameLimit = limit(environment, "username", 10, 5);
+        this.addressLimit = limit(environment, "address", 60, 20);
+        this.tenantLimit = limit(environment, "tenant", 1200, 200);
+        this.failureThreshold = environment.getProperty("authentication.login-guard.failure-threshold", Integer.class, 5);
+        Duration failureWindow = environment.getProperty("authentication.login-guard.failure-window", Duration.class, Duration.ofMinutes(15));
+        this.baseCooldownNanos = environment.getProperty("authentication.login-guard.base-cooldown", Duration.class, Duration.ofSeconds(1)).toNanos();
+        this.maxCooldownNanos = environment.getProperty("authentication.login-guard.max-cooldown", Duration.class, Duration.ofMinutes(15)).toNanos();
+        long maxKeys = environment.getProperty("authentication.login-guard.max-keys", Long.class, 100_000L);
+
+        //A bucket idle for its refill time is full again, so dropping it loses nothing
+        long refillNanos = Math.max(usernameLimit.refillNanos(), Math.max(addressLimit.refillNanos(), tenantLimit.refillNanos()));
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(refillNanos, TimeUnit.NANOSECONDS)
+                .build();
+        this.cooldowns = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterWrite(maxCooldownNanos, TimeUnit.NANOSECONDS)
+                .build();
+        this.failures = new FailureSketch((int) Math.min(maxKeys, 1 << 20), failureWindow.toNanos(), System.nanoTime());
+
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        this.throttled = registry == null ? null : Counter.builder("auth.login.guard.rejected").tag("reason", "rate").register(registry);
+        this.cooledDown = registry == null ? null : Counter.builder("auth.login.guard.rejected").tag("reason", "cooldown").register(registry);
+    }
+
+    /**
+     * Admits a login attempt or rejects it with the time after which it may be retried
+     */
+    public void check(String username, String address, String tenant) throws TooManyRequestsException {
+        if (!enabled) return;
+        long now = System.nanoTime();
+        String user = userKey(username, tenant);
+        String client = "a:" + address;
+
+        long wait = Math.max(cooldown(user, now), cooldown(client, now));
+        if (wait > 0) {
+            if (cooledDown != null) cooledDown.increment();
+            throw reject("Too many failed login attempts", wait);
+        }
+
+        wait = acquire(user, usernameLimit, now);
+        if (wait == 0) wait = acquire(client, addressLimit, now);
+        if (wait == 0) wait = acquire("t:" + tenant, tenantLimit, now);
+        if (wait > 0) {
+            if (throttled != null) throttled.increment();
+            throw reject("Too many login attempts", wait);
+        }
+    }
+
+    /**
+     * Clears the username's cooldown and failure count, so that the next typo starts over from the threshold.
+     * The address keeps its count: one valid account must not launder failures against others.
+     */
+    public void onSuccess(String username, String tenant) {
+        if (!enabled) return;
+        String user = userKey(username, tenant);
+        cooldowns.invalidate(user);
+        failures.clear(user, System.nanoTime());
+    }
+
+    public void onFailure(String username, String address, String tenant) {
+        if (!enabled) return;
+        long now = System.nanoTime();
+        recordFailure(userKey(username, tenant), now);
+        recordFailure("a:" + address, now);
+    }
+
+    private void recordFailure(String key, long now) {
+        int count = failures.increment(key, now);
+        if (count < failureThreshold) return;
+        int doublings = Math.min(count - failureThreshold, 30);
+        long cooldown = Math.min(maxCooldownNanos, baseCooldownNanos << doublings);
+        if (cooldown < 0) cooldown = maxCooldownNanos;
+        cooldowns.put(key, now + cooldown);
+        log.warn("Login cooldown of {} ms for {} after {} failures", TimeUnit.NANOSECONDS.toMillis(cooldown), key, count);
+    }
+
+    private long cooldown(String key, long now) {
+        Long until = cooldowns.getIfPresent(key);
+        return until == null ? 0 : Math.max(0, until - now);
+    }
+
+    private long acquire(String key, TokenBucket.Limit limit, long now) {
+        return buckets.get(key, k -> new TokenBucket(limit, now)).tryAcquire(now);
+    }
+
+    private static String userKey(String username, String tenant) {
+        return "u:" + tenant + ":" + (username == null ? "" : username.toLowerCase(Locale.ROOT));
+    }
+
+    private static TooManyRequestsException reject(String message, long waitNanos) {
+        return new TooManyRequestsException(message, Duration.ofNanos(waitNanos));
+    }
+
+    private static TokenBucket.Limit limit(Environment environment, String scope, int permitsPerMinute, int burst) {
+        return new TokenBucket.Limit(
+                environment.getProperty("authentication.login-guard.%s.permits-per-minute".formatted(scope), Integer.class, permitsPerMinute),
+                environment.getProperty("authentication.login-guard.%s.burst".formatted(scope), Integer.class, burst));
+    }
+}
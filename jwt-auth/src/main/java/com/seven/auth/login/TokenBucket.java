@@ -0,0 +1,59 @@
+package com.seven.auth.login;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket in its virtual-scheduling form: the whole bucket is one "theoretical arrival time".
+ * A request is admitted while that time is at most burst * interval ahead of now, and each admission pushes it
+ * one interval further. Refill is implicit, so an idle bucket needs no background work.
+ */
+public final class TokenBucket {
+    private final long intervalNanos;
+    private final long toleranceNanos;
+    private final AtomicLong theoreticalArrival;
+
+    public TokenBucket(Limit limit, long nowNanos) {
+        this.intervalNanos = limit.intervalNanos();
+        this.toleranceNanos = limit.intervalNanos() * limit.burst();
+        this.theoreticalArrival = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * @return 0 if a token was taken, otherwise the nanoseconds until one becomes available
+     */
+    public long tryAcquire(long nowNanos) {
+        return tryAcquire(nowNanos, 1);
+    }
+
+    /**
+     * Takes permits tokens at once, or none; permits above the burst are never admitted
+     *
+     * @return 0 if the tokens were taken, otherwise the nanoseconds until enough become available
+     */
+    public long tryAcquire(long nowNanos, int permits) {
+        while (true) {
+            long tat = theoreticalArrival.get();
+            long base = tat - nowNanos > 0 ? tat : nowNanos;
+            long next = base + intervalNanos * permits;
+            long wait = next - toleranceNanos - nowNanos;
+            if (wait > 0) return wait;
+            if (theoreticalArrival.compareAndSet(tat, next)) return 0;
+        }
+    }
+
+    /**
+     * Admits up to burst requests at once, then one per interval
+     */
+    public record Limit(int permitsPerMinute, int burst) {
+        long intervalNanos() {
+            return 60_000_000_000L / Math.max(1, permitsPerMinute);
+        }
+
+        /**
+         * Time for an empty bucket to refill completely; an idle bucket may be dropped after this long
+         */
+        public long refillNanos() {
+            return intervalNanos() * burst;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.seven.auth.revocation;
+
+import com.seven.auth.config.authorization.Authorize;
+import com.seven.auth.dto.jwt.RevokedTokens;
+import com.seven.auth.dto.response.Response;
+import com.seven.auth.exception.AuthorizationException;
+import com.seven.auth.permission.PEnum;
+import com.seven.auth.util.Constants;
+import jakarta.validation.Valid;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import static com.seven.auth.dto.response.Responder.noContent;
+
+@RestController
+public class RevocationController {
+    private final RevocationService revocationService;
+
+    public RevocationController(RevocationService revocationService) {
+        this.revocationService = revocationService;
+    }
+
+    /**
+     * The revocation feed adapters sync from; service clients only
+     */
+    @GetMapping(value = "/.well-known/revocations", produces = "application/json")
+    public ResponseEntity<RevokedTokens> getResources(@RequestParam(value = "since", defaultValue = "0") long since) {
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(revocationService.since(since));
+    }
+
+    @PostMapping(value = Constants.PATH_PREFIX + "/revocations", consumes = "application/json")
+    @Authorize(permissions = PEnum.super_create)
+    public ResponseEntity<Response> createResource(@Valid @RequestBody RevocationDTO.Create request) throws AuthorizationException {
+        revocationService.revoke(request.jti(), null, null, request.dateExpires().toInstant());
+        return noContent();
+    }
+}
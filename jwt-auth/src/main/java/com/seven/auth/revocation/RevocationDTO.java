@@ -0,0 +1,25 @@
+package com.seven.auth.revocation;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Future;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.ZonedDateTime;
+
+public class RevocationDTO {
+
+    @Validated
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @Schema(name = "TokenRevocationRequest")
+    public record Create(
+            @NotBlank(message = "Required field")
+            String jti,
+            @NotNull(message = "Required field")
+            @Future(message = "Only unexpired tokens can be revoked")
+            ZonedDateTime dateExpires
+    ) {
+    }
+}
@@ -0,0 +1,124 @@
+package com.seven.auth.revocation;
+
+import com.seven.auth.dto.jwt.RevokedTokens;
+import com.seven.auth.exception.AuthorizationException;
+import com.seven.auth.exception.ClientException;
+import com.seven.auth.util.RevocationIndex;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records access token revocations in public.auth_revoked_token and keeps this instance's
+ * {@link RevocationIndex} in step with the table.
+ * <p>
+ * Local revocations enter the index immediately; revocations made by other instances are picked up
+ * by a background sync that reads only rows past the last settled sequence number. Sequence numbers are
+ * taken before commit, so a revocation may become visible after one with a higher number; the cursor
+ * handed out is therefore held back to revocations older than "commit-margin", and the newer ones are
+ * read again on every sync until they settle. Expired entries are pruned on the same schedule.
+ */
+@Service
+public class RevocationService {
+    private static final Logger log = LoggerFactory.getLogger(RevocationService.class);
+    private static final int PAGE_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final RevocationIndex revocationIndex;
+    private final Duration syncInterval;
+    private final Duration commitMargin;
+    private ScheduledExecutorService synchronizer;
+
+    public RevocationService(JdbcTemplate jdbcTemplate, Environment environment) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.revocationIndex = new RevocationIndex(environment.getProperty("authentication.jwt.revocation.expected-size", Integer.class, 100_000));
+        this.syncInterval = environment.getProperty("authentication.jwt.revocation.sync-interval", Duration.class, Duration.ofSeconds(5));
+        this.commitMargin = environment.getProperty("authentication.jwt.revocation.commit-margin", Duration.class, Duration.ofSeconds(30));
+    }
+
+    @PostConstruct
+    public void startSync() {
+        synchronizer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "revocation-sync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        synchronizer.scheduleWithFixedDelay(this::sync, 0, syncInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stopSync() {
+        if (synchronizer != null) synchronizer.shutdownNow();
+    }
+
+    public boolean isRevoked(String jti) {
+        return revocationIndex.isRevoked(jti);
+    }
+
+    @Transactional
+    public void revoke(String jti, String subject, String tenant, Instant expiresAt) throws AuthorizationException {
+        log.info("Revoking token {} of {} in Tenant: {}", jti, subject, tenant);
+        try {
+            jdbcTemplate.update("""
+                    INSERT INTO public.auth_revoked_token (jti, subject, tenant, date_expires, date_revoked)
+                    VALUES (?, ?, ?, ?, clock_timestamp()) ON CONFLICT (jti) DO NOTHING""",
+                    jti, subject, tenant, Timestamp.from(expiresAt));
+            revocationIndex.add(jti, expiresAt.toEpochMilli());
+            log.info("Token {} revoked successfully", jti);
+        } catch (Exception e) {
+            log.error("Unable to revoke token {}. Message: {}", jti, e.getMessage());
+            throw new ClientException(e.getMessage());
+        }
+    }
+
+    /**
+     * Unexpired revocations with a sequence number above since, oldest first, at most one page. The
+     * returned seq never passes a revocation younger than the commit margin, so entries past it are
+     * delivered again on the next sync; callers page on with the last entry's seq and de-duplicate.
+     */
+    @Transactional(readOnly = true)
+    public RevokedTokens since(long since) {
+        List<RevokedTokens.Entry> entries = jdbcTemplate.query("""
+                        SELECT seq, jti, date_expires FROM public.auth_revoked_token
+                        WHERE seq > ? AND date_expires > CURRENT_TIMESTAMP ORDER BY seq LIMIT ?""",
+                (rs, i) -> new RevokedTokens.Entry(rs.getLong(1), rs.getString(2), rs.getTimestamp(3).getTime()),
+                since, PAGE_SIZE);
+        //Every lower seq is committed or gone once the newest row older than the margin is visible
+        List<Long> settled = jdbcTemplate.queryForList("""
+                        SELECT seq FROM public.auth_revoked_token
+                        WHERE date_revoked < CURRENT_TIMESTAMP - ? * INTERVAL '1 millisecond' ORDER BY seq DESC LIMIT 1""",
+                Long.class, commitMargin.toMillis());
+        long seq = entries.isEmpty() ? since : entries.get(entries.size() - 1).seq();
+        return new RevokedTokens(Math.min(seq, settled.isEmpty() ? 0 : settled.get(0)), entries);
+    }
+
+    private void sync() {
+        try {
+            long cursor = revocationIndex.lastSeq();
+            RevokedTokens page;
+            do {
+                page = since(cursor);
+                revocationIndex.apply(page);
+                if (!page.revocations().isEmpty()) cursor = page.revocations().get(page.revocations().size() - 1).seq();
+            } while (page.revocations().size() == PAGE_SIZE);
+            int pruned = revocationIndex.prune(System.currentTimeMillis());
+            if (pruned > 0) log.info("Pruned {} expired revocation(s); {} active", pruned, revocationIndex.size());
+        } catch (Exception e) {
+            //Keep serving from the index we have
+            log.error("Unable to sync token revocations: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.seven.auth.token;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.seven.auth.account.AccountDTO;
+
+import java.util.List;
+
+/**
+ * The claims shape of an access token. Registered claims use their JWT names; the token id and times
+ * (epoch seconds) are filled in by the {@link TokenMinter} when left null.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record TokenClaims(
+        String jti,
+        String sub,
+        Long iat,
+        Long exp,
+        String tenant,
+        AccountDTO.Record principal,
+        List<String> permissions,
+        String pbits,
+        Integer pver
+) {
+    public static TokenClaims of(String subject, String tenant, AccountDTO.Record principal, List<String> permissions) {
+        return new TokenClaims(null, subject, null, null, tenant, principal, permissions, null, null);
+    }
+
+    public TokenClaims withBitmap(String pbits, int pver) {
+        return new TokenClaims(jti, sub, iat, exp, tenant, principal, null, pbits, pver);
+    }
+
+    TokenClaims issued(String jti, long iat, long exp) {
+        return new TokenClaims(jti, sub, iat, exp, tenant, principal, permissions, pbits, pver);
+    }
+}
@@ -0,0 +1,155 @@
+package com.seven.auth.token;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.seven.auth.key.KeyRing;
+import com.seven.auth.key.SigningKey;
+import com.seven.auth.util.ObjectPool;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Mints compact JWS access tokens without going through the jjwt builder.
+ * <p>
+ * The header segment is encoded once per key, claims are written by an ObjectWriter prebuilt for
+ * {@link TokenClaims}, and Macs (HS256) and Signatures (ES256) are reused from a small pool and only
+ * re-initialised when the active key changes. A pool rather than a ThreadLocal keeps them warm when each
+ * request runs on a fresh virtual thread. Output is byte-for-byte a standard JWS, so tokens are
+ * verified by the existing jjwt parsers unchanged.
+ */
+@Component
+public class TokenMinter {
+    private static final Base64.Encoder BASE64URL = Base64.getUrlEncoder().withoutPadding();
+    private static final ObjectPool<Signer> SIGNERS = new ObjectPool<>(Signer::new);
+
+    private final KeyRing keyRing;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter claimsWriter;
+    private final long ttlSeconds;
+    private final Map<String, byte[]> headers = new ConcurrentHashMap<>();
+
+    public TokenMinter(KeyRing keyRing, ObjectMapper objectMapper, Environment environment) {
+        this.keyRing = keyRing;
+        this.objectMapper = objectMapper;
+        this.claimsWriter = objectMapper.writerFor(TokenClaims.class);
+        this.ttlSeconds = environment.getProperty("authentication.jwt.access-token-ttl", Duration.class, Duration.ofMinutes(15)).toSeconds();
+    }
+
+    public String mint(TokenClaims claims) {
+        return mint(keyRing.active(), System.currentTimeMillis() / 1000, claims);
+    }
+
+    /**
+     * Mints a batch of tokens with a single key and issue time, e.g. for service accounts or load tests
+     */
+    public List<String> mintAll(Collection<TokenClaims> claims) {
+        SigningKey signingKey = keyRing.active();
+        long now = System.currentTimeMillis() / 1000;
+        List<String> tokens = new ArrayList<>(claims.size());
+        for (TokenClaims c : claims) tokens.add(mint(signingKey, now, c));
+        return tokens;
+    }
+
+    public long ttlSeconds() {
+        return ttlSeconds;
+    }
+
+    private String mint(SigningKey signingKey, long now, TokenClaims claims) {
+        if (claims.jti() == null || claims.iat() == null || claims.exp() == null)
+            claims = claims.issued(
+                    claims.jti() == null ? UUID.randomUUID().toString() : claims.jti(),
+                    claims.iat() == null ? now : claims.iat(),
+                    claims.exp() == null ? now + ttlSeconds : claims.exp());
+
+        byte[] header = headers.computeIfAbsent(signingKey.algorithm().getValue() + "." + signingKey.kid(), k -> header(signingKey));
+        byte[] payload;
+        try {
+            payload = BASE64URL.encode(claimsWriter.writeValueAsBytes(claims));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unable to serialize token claims", e);
+        }
+
+        byte[] token = new byte[header.length + 1 + payload.length];
+        System.arraycopy(header, 0, token, 0, header.length);
+        token[header.length] = '.';
+        System.arraycopy(payload, 0, token, header.length + 1, payload.length);
+
+        Signer signer = SIGNERS.borrow();
+        byte[] signature;
+        try {
+            signature = BASE64URL.encode(signer.sign(signingKey, token));
+        } finally {
+            SIGNERS.release(signer);
+        }
+        return new StringBuilder(token.length + 1 + signature.length)
+                .append(new String(token, StandardCharsets.US_ASCII))
+                .append('.')
+                .append(new String(signature, StandardCharsets.US_ASCII))
+                .toString();
+    }
+
+    private byte[] header(SigningKey signingKey) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(Map.of("alg", signingKey.algorithm().getValue(), "kid", signingKey.kid()));
+            return BASE64URL.encode(json);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unable to serialize token header", e);
+        }
+    }
+
+    /**
+     * Pooled signing state; the JCA objects are reused across tokens and only re-keyed on rotation
+     */
+    private static class Signer {
+        private Key macKey;
+        private Mac mac;
+        private Key signatureKey;
+        private Signature signature;
+
+        byte[] sign(SigningKey signingKey, byte[] input) {
+            try {
+                if (signingKey.algorithm() == SignatureAlgorithm.HS256) {
+                    if (mac == null) mac = Mac.getInstance("HmacSHA256");
+                    if (macKey != signingKey.signingKey()) {
+                        mac.init(signingKey.signingKey());
+                        macKey = signingKey.signingKey();
+                    }
+                    return mac.doFinal(input);
+                }
+                if (signingKey.algorithm() == SignatureAlgorithm.ES256) {
+                    //P1363 yields the raw R||S concatenation JWS expects instead of DER
+                    if (signature == null) signature = Signature.getInstance("SHA256withECDSAinP1363Format");
+                    //sign() returns the Signature to its initialised state, so it is only re-keyed on rotation
+                    if (signatureKey != signingKey.signingKey()) {
+                        signature.initSign((PrivateKey) signingKey.signingKey());
+                        signatureKey = signingKey.signingKey();
+                    }
+                    signature.update(input);
+                    return signature.sign();
+                }
+                throw new IllegalStateException("Unsupported signing algorithm: " + signingKey.algorithm().getValue());
+            } catch (GeneralSecurityException e) {
+                macKey = null;
+                signatureKey = null;
+                throw new IllegalStateException("Unable to sign token with key: " + signingKey.kid(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.seven.auth.warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.seven.auth.JwtService;
+import com.seven.auth.account.AccountDTO;
+import com.seven.auth.account.AccountRepository;
+import com.seven.auth.account.LoginDetailsService;
+import com.seven.auth.application.ApplicationRepository;
+import com.seven.auth.config.threadlocal.TenantContext;
+import com.seven.auth.dto.response.Response;
+import com.seven.auth.password.PasswordHashingService;
+import com.seven.auth.permission.PermissionDictionaryService;
+import com.seven.auth.permission.PermissionRepository;
+import com.seven.auth.token.TokenClaims;
+import com.seven.auth.util.Constants;
+import com.zaxxer.hikari.HikariDataSource;
+import io.jsonwebtoken.Claims;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.env.Environment;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Runs the request paths once over before the instance takes traffic, so the first requests after a deploy
+ * don't pay for cold pool connections, Hibernate query plans, Jackson serializers, jjwt parsing and BCrypt.
+ * <p>
+ * The pool is filled up to its minimum idle size, then the login lookup, entity queries, permission dictionary,
+ * token minting and parsing, response serialization and password verification are exercised "iterations" times
+ * against the public schema and the "tenants" most active tenant schemas. Activity is read from Postgres'
+ * statistics on each schema's refresh token table, i.e. how many logins and refreshes it has seen.
+ * <p>
+ * Spring Boot only reports readiness (/actuator/health/readiness) as accepting traffic once every
+ * ApplicationRunner has returned, so the instance stays out of rotation until this finishes or gives up
+ * after "timeout". Failures are logged and never prevent startup.
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE)
+public class WarmUpRunner implements ApplicationRunner {
+    private static final Logger log = LoggerFactory.getLogger(WarmUpRunner.class);
+    private static final String UNKNOWN_EMAIL = "warm-up@localhost.invalid";
+
+    private static final String ACTIVE_TENANTS_QUERY = """
+            SELECT s.schemaname FROM pg_stat_user_tables s
+            WHERE s.relname = 'auth_refresh_token' AND s.schemaname IN (SELECT schema_name FROM public.auth_application)
+            AND s.schemaname <> ?
+            ORDER BY s.n_tup_ins + s.n_tup_upd DESC
+            LIMIT ?""";
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationRepository applicationRepository;
+    private final AccountRepository accountRepository;
+    private final PermissionRepository permissionRepository;
+    private final PermissionDictionaryService permissionDictionaryService;
+    private final LoginDetailsService loginDetailsService;
+    private final PasswordHashingService passwordHashingService;
+    private final JwtService jwtService;
+    private final ObjectMapper objectMapper;
+
+    private final boolean enabled;
+    private final int tenants;
+    private final int iterations;
+    private final Duration timeout;
+
+    public WarmUpRunner(DataSource dataSource, JdbcTemplate jdbcTemplate, ApplicationRepository applicationRepository, AccountRepository accountRepository,
+                        PermissionRepository permissionRepository, PermissionDictionaryService permissionDictionaryService, LoginDetailsService loginDetailsService,
+                        PasswordHashingService passwordHashingService, JwtService jwtService, ObjectMapper objectMapper, Environment environment) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = jdbcTemplate;
+        this.applicationRepository = applicationRepository;
+        this.accountRepository = accountRepository;
+        this.permissionRepository = permissionRepository;
+        this.permissionDictionaryService = permissionDictionaryService;
+        this.loginDetailsService = loginDetailsService;
+        this.passwordHashingService = passwordHashingService;
+        this.jwtService = jwtService;
+        this.objectMapper = objectMapper;
+        this.enabled = environment.getProperty("authentication.warm-up.enabled", Boolean.class, true);
+        this.tenants = environment.getProperty("authentication.warm-up.tenants", Integer.class, 5);
+        this.iterations = environment.getProperty("authentication.warm-up.iterations", Integer.class, 20);
+        this.timeout = environment.getProperty("authentication.warm-up.timeout", Duration.class, Duration.ofSeconds(60));
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) return;
+        long start = System.nanoTime();
+        long deadline = start + timeout.toNanos();
+        log.info("Warming up");
+        try {
+            fillPool();
+            List<String> schemas = schemas();
+            String encoded = passwordHashingService.hash(UNKNOWN_EMAIL);
+
+            int rounds = 0;
+            while (rounds < iterations && System.nanoTime() < deadline) {
+                for (String schema : schemas) {
+                    TenantContext.callWith(schema, () -> {
+                        exercise(schema);
+                        return null;
+                    });
+                }
+                passwordHashingService.verify(UNKNOWN_EMAIL, encoded);
+                rounds++;
+            }
+            log.info("Warm-up of {} schema(s) done in {} ms over {} round(s)", schemas.size(), Duration.ofNanos(System.nanoTime() - start).toMillis(), rounds);
+        } catch (Exception e) {
+            log.error("Warm-up stopped early. Message: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Opens the pool's minimum idle connections now rather than on the first requests
+     */
+    private void fillPool() throws SQLException {
+        if (!dataSource.isWrapperFor(HikariDataSource.class)) return;
+        //Straight from the pool, past any tenant connection budget
+        HikariDataSource pool = dataSource.unwrap(HikariDataSource.class);
+        int size = Math.max(1, pool.getMinimumIdle());
+        List<Connection> connections = new ArrayList<>(size);
+        try {
+            for (int i = 0; i < size; i++) {
+                connections.add(pool.getConnection());
+            }
+        } finally {
+            for (Connection connection : connections) {
+                connection.close();
+            }
+        }
+        log.info("Opened {} pooled connection(s)", connections.size());
+    }
+
+    private List<String> schemas() {
+        Set<String> schemas = new LinkedHashSet<>();
+        schemas.add(Constants.PUBLIC_SCHEMA);
+        if (tenants > 0) {
+            try {
+                schemas.addAll(jdbcTemplate.queryForList(ACTIVE_TENANTS_QUERY, String.class, Constants.PUBLIC_SCHEMA, tenants));
+            } catch (Exception e) {
+                log.warn("Unable to rank tenants by activity. Message: {}", e.getMessage());
+            }
+        }
+        return List.copyOf(schemas);
+    }
+
+    private void exercise(String schema) throws Exception {
+        //Login lookup, then the JPA paths behind the resource endpoints
+        try {
+            loginDetailsService.loadUserByUsername(UNKNOWN_EMAIL);
+        } catch (UsernameNotFoundException ignored) {
+            //expected
+        }
+        permissionRepository.findNamesByAccount(UNKNOWN_EMAIL);
+        accountRepository.findByEmail(UNKNOWN_EMAIL);
+        accountRepository.findAll(PageRequest.of(0, 1));
+        applicationRepository.findBySchemaName(schema);
+        permissionDictionaryService.get(schema);
+
+        //Token round trip and response serialization, with the same types a login produces
+        AccountDTO.Record principal = new AccountDTO.Record(UUID.randomUUID(), "Warm", "Up", "0000000000", UNKNOWN_EMAIL,
+                LocalDate.now(), ZonedDateTime.now(), ZonedDateTime.now(), null, null);
+        String token = jwtService.generateToken(TokenClaims.of(UNKNOWN_EMAIL, schema, principal, List.of("read_account")));
+        Claims claims = jwtService.extractClaims(token);
+        claims.get("principal", AccountDTO.Record.class);
+        jwtService.grantedPermissions(claims);
+        objectMapper.writeValueAsBytes(Response.builder()
+                .data(principal)
+                .status(HttpStatus.OK)
+                .isError(false)
+                .timestamp(LocalDateTime.now())
+                .token(token)
+                .build());
+    }
+}